@@ -0,0 +1,99 @@
+package com.example.timepicker.timepicker;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Flings a detached picker with synthetic touch events and checks where it
+ * stops when its animations are suspended part way.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NumberPickerFlingTest {
+    private static final int FLING_MOVES = 5;
+    private static final long FLING_MOVE_INTERVAL_MS = 10;
+
+    @Test
+    public void suspendDuringFling_settlesOnFlingTarget() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Advance the fling by different amounts so that it is
+                // interrupted both on a row and between rows.
+                for (long elapsed = 0; elapsed <= 80; elapsed += 16) {
+                    checkSuspendDuringFling(true, elapsed);
+                    checkSuspendDuringFling(false, elapsed);
+                }
+            }
+        });
+    }
+
+    private static void checkSuspendDuringFling(boolean up, long elapsedMillis) {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final NumberPicker picker = new NumberPicker(context);
+        picker.setMinValue(0);
+        picker.setMaxValue(59);
+        picker.setWrapSelectorWheel(true);
+        picker.setValue(30);
+
+        // The picker asks its parent not to intercept touches.
+        final FrameLayout parent = new FrameLayout(context);
+        parent.addView(picker);
+        final int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        parent.measure(unspecified, unspecified);
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+
+        final int[] scrollState = {NumberPicker.OnScrollListener.SCROLL_STATE_IDLE};
+        picker.setOnScrollListener(new NumberPicker.OnScrollListener() {
+            @Override
+            public void onScrollStateChange(NumberPicker view, int state) {
+                scrollState[0] = state;
+            }
+        });
+
+        fling(picker, up);
+        final String message = (up ? "up" : "down") + " after " + elapsedMillis + "ms";
+        assertEquals(message, NumberPicker.OnScrollListener.SCROLL_STATE_FLING, scrollState[0]);
+        final int target = picker.getFlingTargetValue();
+
+        SystemClock.sleep(elapsedMillis);
+        picker.computeScroll();
+        // As when the window is removed.
+        picker.onDetachedFromWindow();
+
+        assertEquals(message, NumberPicker.OnScrollListener.SCROLL_STATE_IDLE, scrollState[0]);
+        assertEquals(message, target, picker.getValue());
+    }
+
+    /** Swipes across most of the picker's height fast enough to fling. */
+    private static void fling(NumberPicker picker, boolean up) {
+        final float x = picker.getWidth() / 2f;
+        final float fromY = picker.getHeight() * (up ? 0.8f : 0.2f);
+        final float toY = picker.getHeight() * (up ? 0.2f : 0.8f);
+        final long downTime = SystemClock.uptimeMillis();
+
+        dispatch(picker, downTime, downTime, MotionEvent.ACTION_DOWN, x, fromY);
+        for (int i = 1; i <= FLING_MOVES; i++) {
+            final float y = fromY + (toY - fromY) * i / FLING_MOVES;
+            final long eventTime = downTime + i * FLING_MOVE_INTERVAL_MS;
+            final int action = i < FLING_MOVES ? MotionEvent.ACTION_MOVE : MotionEvent.ACTION_UP;
+            dispatch(picker, downTime, eventTime, action, x, y);
+        }
+    }
+
+    private static void dispatch(View view, long downTime, long eventTime, int action,
+            float x, float y) {
+        final MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
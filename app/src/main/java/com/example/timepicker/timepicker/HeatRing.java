@@ -0,0 +1,292 @@
+package com.example.timepicker.timepicker;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.SweepGradient;
+
+import com.example.timepicker.clockface.ClockFaceGeometry;
+
+/**
+ * Ring drawn behind a row of numerals that shows a window of a load
+ * histogram, one bucket per equal arc, starting at 12 o'clock.
+ * <p>
+ * The whole ring is a single stroked circle filled by a
+ * {@link SweepGradient} with two stops per bucket, so drawing costs one
+ * primitive regardless of the number of buckets. Updates recompute only the
+ * stops of the changed buckets. Rather than creating the whole shader
+ * again, the span of buckets changed since it was created is cut out of it
+ * and drawn as a separate arc with a shader of its own, so a small update
+ * costs a shader of a few stops. Once the span grows past
+ * {@link #MAX_PATCHED_BUCKETS} or half the ring, the whole shader is
+ * created again instead.
+ */
+final class HeatRing {
+    /** Most buckets drawn as a separate arc before the shader is rebuilt. */
+    private static final int MAX_PATCHED_BUCKETS = 32;
+
+    private final Paint mPaint = new Paint();
+    private final Matrix mShaderMatrix = new Matrix();
+
+    private float mCenterX;
+    private float mCenterY;
+    private float mRadius;
+    private float mWidth;
+
+    /** First histogram bucket shown and the number of buckets around the ring. */
+    private int mStart;
+    private int mCount;
+
+    /** Two color stops per bucket, at its start and end angle. */
+    private int[] mColors = new int[0];
+    private float[] mPositions = new float[0];
+
+    /** Shader built from the stops, or {@code null} if stale. */
+    private SweepGradient mShader;
+
+    /**
+     * Buckets changed since {@link #mShader} was built, drawn as a separate
+     * arc. Empty if {@code mPatchFirst >= mPatchLast}.
+     */
+    private int mPatchFirst;
+    private int mPatchLast;
+
+    private final Paint mPatchPaint = new Paint();
+
+    /** Shader for the changed buckets, or {@code null} if stale. */
+    private SweepGradient mPatchShader;
+
+    /** Wedge covering the changed buckets, cut out of the ring. */
+    private final Path mPatchWedge = new Path();
+    private final RectF mPatchOval = new RectF();
+
+    HeatRing() {
+        mPaint.setAntiAlias(true);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPatchPaint.setAntiAlias(true);
+        mPatchPaint.setStyle(Paint.Style.STROKE);
+    }
+
+    /**
+     * Sets the track the ring is drawn along.
+     *
+     * @param radius radius of the center of the track
+     * @param width width of the track
+     */
+    void setGeometry(float centerX, float centerY, float radius, float width) {
+        mCenterX = centerX;
+        mCenterY = centerY;
+        mRadius = radius;
+        mWidth = width;
+
+        // Sweep gradients start at 3 o'clock.
+        mShaderMatrix.setRotate(-90, centerX, centerY);
+        invalidateShader();
+    }
+
+    /**
+     * Sets the buckets shown around the ring.
+     *
+     * @param start the first bucket, shown at 12 o'clock
+     * @param count the number of buckets, or 0 to hide the ring
+     * @return {@code true} if the window changed and the stops must be
+     *         filled again
+     */
+    boolean setWindow(int start, int count) {
+        if (mStart == start && mCount == count) {
+            return false;
+        }
+
+        mStart = start;
+        mCount = count;
+        if (mPositions.length != count * 2) {
+            mColors = new int[count * 2];
+            mPositions = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                mPositions[i * 2] = (float) i / count;
+                mPositions[i * 2 + 1] = (float) (i + 1) / count;
+            }
+        }
+        invalidateShader();
+        return true;
+    }
+
+    /**
+     * Recomputes the stops of every bucket in the window.
+     *
+     * @param levels the histogram, with levels in the range [0,1]
+     * @param color the color of a fully loaded bucket
+     */
+    void fill(float[] levels, int color) {
+        for (int i = 0; i < mCount; i++) {
+            setStop(i, levels[mStart + i], color);
+        }
+        invalidateShader();
+    }
+
+    /**
+     * Recomputes the stops of the changed buckets that fall in the window.
+     *
+     * @param levels the histogram, with levels in the range [0,1]
+     * @param color the color of a fully loaded bucket
+     * @param from the first changed bucket, inclusive
+     * @param to the last changed bucket, exclusive
+     * @param outDirty extended by the bounds of the changed arc
+     * @return {@code true} if any shown bucket changed
+     */
+    boolean update(float[] levels, int color, int from, int to, Rect outDirty) {
+        final int first = Math.max(from, mStart) - mStart;
+        final int last = Math.min(to, mStart + mCount) - mStart;
+        if (first >= last) {
+            return false;
+        }
+
+        for (int i = first; i < last; i++) {
+            setStop(i, levels[mStart + i], color);
+        }
+        if (mShader != null) {
+            addPatch(first, last);
+        }
+        unionArcBounds(first, last, outDirty);
+        return true;
+    }
+
+    /**
+     * Extends the span of buckets drawn separately from the shader, or drops
+     * the shader if the span gets too large.
+     */
+    private void addPatch(int first, int last) {
+        if (mPatchFirst < mPatchLast) {
+            first = Math.min(first, mPatchFirst);
+            last = Math.max(last, mPatchLast);
+        }
+        final int span = last - first;
+        if (span > MAX_PATCHED_BUCKETS || span * 2 > mCount) {
+            invalidateShader();
+            return;
+        }
+        mPatchFirst = first;
+        mPatchLast = last;
+        mPatchShader = null;
+    }
+
+    private void invalidateShader() {
+        mShader = null;
+        mPatchShader = null;
+        mPatchFirst = 0;
+        mPatchLast = 0;
+    }
+
+    private void setStop(int index, float level, int color) {
+        final int alpha = (int) (Color.alpha(color) * Math.max(0, Math.min(level, 1)) + 0.5f);
+        final int stop = (color & 0x00FFFFFF) | (alpha << 24);
+        mColors[index * 2] = stop;
+        mColors[index * 2 + 1] = stop;
+    }
+
+    /**
+     * Extends the bounds by the track area covered by the given buckets,
+     * padded by a pixel for anti-aliasing.
+     */
+    private void unionArcBounds(int first, int last, Rect outBounds) {
+        final float startDeg = first * 360f / mCount;
+        final float endDeg = last * 360f / mCount;
+        final float outer = mRadius + mWidth / 2 + 1;
+        final float inner = Math.max(0, mRadius - mWidth / 2 - 1);
+
+        // An arc's extremes are its end points and the axes it crosses.
+        final float sinStart = ClockFaceGeometry.sinDeg(startDeg);
+        final float cosStart = ClockFaceGeometry.cosDeg(startDeg);
+        float left = mCenterX + Math.min(inner * sinStart, outer * sinStart);
+        float right = mCenterX + Math.max(inner * sinStart, outer * sinStart);
+        float top = mCenterY - Math.max(inner * cosStart, outer * cosStart);
+        float bottom = mCenterY - Math.min(inner * cosStart, outer * cosStart);
+        for (int axis = ((int) startDeg / 90 + 1) * 90; ; axis += 90) {
+            final boolean end = axis >= endDeg;
+            final float degrees = end ? endDeg : axis;
+            final float sin = ClockFaceGeometry.sinDeg(degrees);
+            final float cos = ClockFaceGeometry.cosDeg(degrees);
+            left = Math.min(left, mCenterX + Math.min(inner * sin, outer * sin));
+            right = Math.max(right, mCenterX + Math.max(inner * sin, outer * sin));
+            top = Math.min(top, mCenterY - Math.max(inner * cos, outer * cos));
+            bottom = Math.max(bottom, mCenterY - Math.min(inner * cos, outer * cos));
+            if (end) {
+                break;
+            }
+        }
+
+        outBounds.union((int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right), (int) Math.ceil(bottom));
+    }
+
+    /**
+     * Draws the ring with its bucket colors multiplied by the given alpha.
+     */
+    void draw(Canvas canvas, int alpha) {
+        if (mCount == 0 || mRadius <= mWidth / 2 || alpha == 0) {
+            return;
+        }
+
+        if (mShader == null) {
+            mShader = new SweepGradient(mCenterX, mCenterY, mColors, mPositions);
+            mShader.setLocalMatrix(mShaderMatrix);
+            mPaint.setShader(mShader);
+        }
+        mPaint.setStrokeWidth(mWidth);
+        mPaint.setAlpha(alpha);
+        if (mPatchFirst >= mPatchLast) {
+            canvas.drawCircle(mCenterX, mCenterY, mRadius, mPaint);
+            return;
+        }
+
+        // Arcs start at 3 o'clock, buckets at 12 o'clock.
+        final float startAngle = mPatchFirst * 360f / mCount - 90;
+        final float sweepAngle = (mPatchLast - mPatchFirst) * 360f / mCount;
+        if (mPatchShader == null) {
+            createPatch(startAngle, sweepAngle);
+        }
+
+        canvas.save();
+        canvas.clipPath(mPatchWedge, Region.Op.DIFFERENCE);
+        canvas.drawCircle(mCenterX, mCenterY, mRadius, mPaint);
+        canvas.restore();
+
+        mPatchPaint.setStrokeWidth(mWidth);
+        mPatchPaint.setAlpha(alpha);
+        canvas.drawArc(mCenterX - mRadius, mCenterY - mRadius, mCenterX + mRadius,
+                mCenterY + mRadius, startAngle, sweepAngle, false, mPatchPaint);
+    }
+
+    /**
+     * Creates the shader and the wedge for the changed buckets. The shader
+     * holds their stops, padded with the first and last color so that it
+     * spans the whole circle.
+     */
+    private void createPatch(float startAngle, float sweepAngle) {
+        final int stops = (mPatchLast - mPatchFirst) * 2;
+        final int[] colors = new int[stops + 2];
+        final float[] positions = new float[stops + 2];
+        System.arraycopy(mColors, mPatchFirst * 2, colors, 1, stops);
+        System.arraycopy(mPositions, mPatchFirst * 2, positions, 1, stops);
+        colors[0] = colors[1];
+        colors[stops + 1] = colors[stops];
+        positions[0] = 0;
+        positions[stops + 1] = 1;
+
+        mPatchShader = new SweepGradient(mCenterX, mCenterY, colors, positions);
+        mPatchShader.setLocalMatrix(mShaderMatrix);
+        mPatchPaint.setShader(mPatchShader);
+
+        final float outer = mRadius + mWidth / 2 + 1;
+        mPatchOval.set(mCenterX - outer, mCenterY - outer, mCenterX + outer, mCenterY + outer);
+        mPatchWedge.reset();
+        mPatchWedge.moveTo(mCenterX, mCenterY);
+        mPatchWedge.arcTo(mPatchOval, startAngle, sweepAngle, false);
+        mPatchWedge.close();
+    }
+}
@@ -19,6 +19,7 @@ package com.example.timepicker.timepicker;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -34,7 +35,6 @@ import android.text.Spanned;
 import android.text.TextUtils;
 import android.text.method.NumberKeyListener;
 import android.util.AttributeSet;
-import android.util.SparseArray;
 import android.util.TypedValue;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
@@ -69,18 +69,16 @@ import androidx.core.view.accessibility.AccessibilityRecordCompat;
 
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.DigitFormatter;
 import com.example.timepicker.timepicker.util.StateSet;
 import com.example.timepicker.timepicker.util.Utils;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-
-//import libcore.icu.LocaleData;
 
 /**
  * A widget that enables the user to select a number from a predefined range.
@@ -112,6 +110,27 @@ import java.util.Locale;
  */
 public class NumberPicker extends LinearLayout {
 
+    /**
+     * Every value the wheel passes is reported to the
+     * {@link OnValueChangeListener}.
+     */
+    public static final int VALUE_CHANGE_DELIVERY_EACH_STEP = 0;
+
+    /**
+     * While the wheel scrolls, changes are reported to the
+     * {@link OnValueChangeListener} at most once per frame, from the value
+     * last reported to the current one. Other changes are reported at once.
+     */
+    public static final int VALUE_CHANGE_DELIVERY_PER_FRAME = 1;
+
+    /**
+     * @hide
+     */
+    @IntDef({VALUE_CHANGE_DELIVERY_EACH_STEP, VALUE_CHANGE_DELIVERY_PER_FRAME})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ValueChangeDelivery {
+    }
+
     /**
      * The number of items show in the selector wheel.
      */
@@ -122,6 +141,11 @@ public class NumberPicker extends LinearLayout {
      */
     private static final long DEFAULT_LONG_PRESS_UPDATE_INTERVAL = 300;
 
+    /**
+     * The number of formatted labels cached, a power of two.
+     */
+    private static final int LABEL_CACHE_SIZE = 256;
+
     /**
      * The index of the middle selector item.
      */
@@ -176,46 +200,13 @@ public class NumberPicker extends LinearLayout {
 
     /**
      * Use a custom NumberPicker formatting callback to use two-digit minutes
-     * strings like "01". Keeping a static formatter etc. is the most efficient
-     * way to do this; it avoids creating temporary objects on every call to
-     * format().
+     * strings like "01". The shared {@link DigitFormatter} returns pre-built
+     * strings in the default locale, so format() doesn't create temporary
+     * objects.
      */
     private static class TwoDigitFormatter implements Formatter {
-        final StringBuilder mBuilder = new StringBuilder();
-
-        char mZeroDigit;
-        java.util.Formatter mFmt;
-
-        final Object[] mArgs = new Object[1];
-
-        TwoDigitFormatter() {
-            final Locale locale = Locale.getDefault();
-            init(locale);
-        }
-
-        private void init(Locale locale) {
-            mFmt = createFormatter(locale);
-            mZeroDigit = getZeroDigit(locale);
-        }
-
         public String format(int value) {
-            final Locale currentLocale = Locale.getDefault();
-            if (mZeroDigit != getZeroDigit(currentLocale)) {
-                init(currentLocale);
-            }
-            mArgs[0] = value;
-            mBuilder.delete(0, mBuilder.length());
-            mFmt.format("%02d", mArgs);
-            return mFmt.toString();
-        }
-
-        private static char getZeroDigit(Locale locale) {
-            return DecimalFormatSymbols.getInstance(locale).getZeroDigit(); // FIXME needs ICU
-            // return LocaleData.get(locale).zeroDigit;
-        }
-
-        private java.util.Formatter createFormatter(Locale locale) {
-            return new java.util.Formatter(mBuilder, locale);
+            return DigitFormatter.getInstance().formatTwoDigits(value);
         }
     }
 
@@ -308,25 +299,123 @@ public class NumberPicker extends LinearLayout {
      */
     private OnValueChangeListener mOnValueChangeListener;
 
+    /**
+     * Listener to be notified when the value comes to rest.
+     */
+    private OnValueSettledListener mOnValueSettledListener;
+
+    /**
+     * How value changes are reported while the wheel scrolls.
+     */
+    private @ValueChangeDelivery int mValueChangeDelivery = VALUE_CHANGE_DELIVERY_EACH_STEP;
+
+    /**
+     * Whether a conflated value change waits for the next frame.
+     */
+    private boolean mValueChangePending;
+
+    /**
+     * The value last reported to the value change listener while a
+     * conflated change is pending.
+     */
+    private int mPendingPreviousValue;
+
+    /**
+     * Delivers the pending conflated value change.
+     */
+    private final Runnable mDeliverValueChangeCommand = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingValueChange();
+        }
+    };
+
+    /**
+     * The value last reported as settled, or set via {@link #setValue(int)}.
+     */
+    private int mSettledValue;
+
+    /**
+     * Whether the input text lags behind the value. The hidden input text
+     * isn't updated while the selector wheel scrolls, only once it settles
+     * or the input text is needed.
+     */
+    private boolean mInputTextDirty;
+
     /**
      * Listener to be notified upon scroll state change.
      */
     private OnScrollListener mOnScrollListener;
 
+    /**
+     * Listener to be notified with per-frame rendering metrics.
+     */
+    private RenderMetricsListener mRenderMetricsListener;
+
+    /**
+     * Number of text operations issued during the current frame.
+     */
+    private int mTextOpCount;
+
+    /**
+     * The cause of the most recent invalidation, reported with the metrics.
+     */
+    private int mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_API;
+
     /**
      * Formatter for for displaying the current value.
      */
     private Formatter mFormatter;
 
+    /**
+     * Filter for values that can be selected, or <code>null</code> if all
+     * values can be selected.
+     */
+    private ValueFilter mValueFilter;
+
+    /**
+     * Alpha multiplier for values rejected by the value filter.
+     */
+    private float mUnselectableAlpha;
+
+    /**
+     * Direction of the last value change, 1 for increments and -1 for
+     * decrements.
+     */
+    private int mLastChangeDirection = 1;
+
+    /**
+     * Offset from the minimum value of the closest selectable value at or
+     * after each value, or -1 if there is none. Built lazily from the value
+     * filter.
+     */
+    private int[] mNextSelectable;
+
+    /**
+     * Offset from the minimum value of the closest selectable value at or
+     * before each value, or -1 if there is none.
+     */
+    private int[] mPreviousSelectable;
+
+    /** Whether the selectable tables need to be built again. */
+    private boolean mSelectableTablesDirty = true;
+
     /**
      * The speed for updating the value form long press.
      */
     private long mLongPressUpdateInterval = DEFAULT_LONG_PRESS_UPDATE_INTERVAL;
 
     /**
-     * Cache for the string representation of selector indices.
+     * Labels of formatted values, cached by their offset from the min value.
+     * Ranges of up to {@link #LABEL_CACHE_SIZE} values are cached entirely;
+     * larger ranges keep any window of that many consecutive values. The
+     * cache is only cleared when the labels change, so scrolling doesn't
+     * format or allocate once every value has been shown.
      */
-    private final SparseArray<String> mSelectorIndexToStringCache = new SparseArray<String>();
+    private final String[] mLabels = new String[LABEL_CACHE_SIZE];
+
+    /** The value each entry of {@link #mLabels} was formatted for. */
+    private final int[] mLabelValues = new int[LABEL_CACHE_SIZE];
 
     /**
      * The selector indices whose value are show by the selector.
@@ -368,6 +457,11 @@ public class NumberPicker extends LinearLayout {
      */
     private Scroller mAdjustScroller;
 
+    /**
+     * The value the current fling will settle on.
+     */
+    private int mFlingTargetValue;
+
     /**
      * The previous Y coordinate while scrolling the selector.
      */
@@ -525,6 +619,22 @@ public class NumberPicker extends LinearLayout {
         void onValueChange(NumberPicker picker, int oldVal, int newVal);
     }
 
+    /**
+     * Interface to listen for the value coming to rest after the user changed
+     * it.
+     */
+    public interface OnValueSettledListener {
+
+        /**
+         * Called when the wheel stopped on a value other than the one last
+         * settled on or set via {@link #setValue(int)}.
+         *
+         * @param picker The NumberPicker associated with this listener.
+         * @param value The settled value.
+         */
+        void onValueSettled(NumberPicker picker, int value);
+    }
+
     /**
      * Interface to listen for the picker scroll state.
      */
@@ -549,6 +659,8 @@ public class NumberPicker extends LinearLayout {
 
         /**
          * The user had previously been scrolling using touch and performed a fling.
+         * The value the fling will settle on is known from the start, see
+         * {@link NumberPicker#getFlingTargetValue()}.
          */
         public static int SCROLL_STATE_FLING = 2;
 
@@ -564,8 +676,21 @@ public class NumberPicker extends LinearLayout {
         public void onScrollStateChange(NumberPicker view, @ScrollState int scrollState);
     }
 
+    /**
+     * Interface used to decide which values can be selected.
+     */
+    public interface ValueFilter {
+
+        /**
+         * @param value A value between the minimum and maximum value.
+         * @return Whether the value can be selected.
+         */
+        public boolean isSelectable(int value);
+    }
+
     /**
      * Interface used to format current value into a string for presentation.
+     * Formatted values are cached, see {@link NumberPicker#setFormatter(Formatter)}.
      */
     public interface Formatter {
 
@@ -756,6 +881,7 @@ public class NumberPicker extends LinearLayout {
         mInputText.setOnFocusChangeListener(new OnFocusChangeListener() {
             public void onFocusChange(View v, boolean hasFocus) {
                 if (hasFocus) {
+                    flushInputTextView();
                     mInputText.selectAll();
                 } else {
                     mInputText.setSelection(0, 0);
@@ -789,6 +915,11 @@ public class NumberPicker extends LinearLayout {
         paint.setColor(color);
         mSelectorWheelPaint = paint;
 
+        // Unselectable values are drawn like disabled text.
+        final TypedValue outValue = new TypedValue();
+        context.getTheme().resolveAttribute(android.R.attr.disabledAlpha, outValue, true);
+        mUnselectableAlpha = outValue.getFloat();
+
         // create the fling and adjust scrollers
         mFlingScroller = new Scroller(getContext(), null, true);
         mAdjustScroller = new Scroller(getContext(), new DecelerateInterpolator(2.5f));
@@ -862,16 +993,17 @@ public class NumberPicker extends LinearLayout {
         int amountToScroll = scroller.getFinalY() - scroller.getCurrY();
         int futureScrollOffset = (mCurrentScrollOffset + amountToScroll) % mSelectorElementHeight;
         int overshootAdjustment = mInitialScrollOffset - futureScrollOffset;
-        if (overshootAdjustment != 0) {
-            if (Math.abs(overshootAdjustment) > mSelectorElementHeight / 2) {
-                if (overshootAdjustment > 0) {
-                    overshootAdjustment -= mSelectorElementHeight;
-                } else {
-                    overshootAdjustment += mSelectorElementHeight;
-                }
+        if (Math.abs(overshootAdjustment) > mSelectorElementHeight / 2) {
+            if (overshootAdjustment > 0) {
+                overshootAdjustment -= mSelectorElementHeight;
+            } else {
+                overshootAdjustment += mSelectorElementHeight;
             }
-            amountToScroll += overshootAdjustment;
-            scrollBy(0, amountToScroll);
+        }
+        // Flings are set up to end on a row, so there is usually no
+        // overshoot, but the rest of the scroll must still be applied.
+        if (amountToScroll != 0 || overshootAdjustment != 0) {
+            scrollBy(0, amountToScroll + overshootAdjustment);
             return true;
         }
         return false;
@@ -955,6 +1087,7 @@ public class NumberPicker extends LinearLayout {
                 } else {
                     int deltaMoveY = (int) ((currentMoveY - mLastDownOrMoveEventY));
                     scrollBy(0, deltaMoveY);
+                    mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_TOUCH;
                     invalidate();
                 }
                 mLastDownOrMoveEventY = currentMoveY;
@@ -1135,6 +1268,7 @@ public class NumberPicker extends LinearLayout {
         }
         scrollBy(0, currentScrollerY - mPreviousScrollerY);
         mPreviousScrollerY = currentScrollerY;
+        mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_ANIMATION;
         if (scroller.isFinished()) {
             onScrollerFinished(scroller);
         } else {
@@ -1215,6 +1349,37 @@ public class NumberPicker extends LinearLayout {
         mOnValueChangeListener = onValueChangedListener;
     }
 
+    /**
+     * Sets the listener to be notified when the value comes to rest after the
+     * user changed it, e.g. when a fling ends.
+     *
+     * @param onValueSettledListener The listener.
+     */
+    public void setOnValueSettledListener(OnValueSettledListener onValueSettledListener) {
+        mOnValueSettledListener = onValueSettledListener;
+    }
+
+    /**
+     * Sets how value changes are reported while the wheel scrolls. Per-frame
+     * delivery saves listeners from running for every value a fling passes,
+     * but reports jumps of several values, so listeners that track every
+     * step, e.g. to carry over into another picker, must handle them.
+     *
+     * @param delivery {@link #VALUE_CHANGE_DELIVERY_EACH_STEP}, the default,
+     *                 or {@link #VALUE_CHANGE_DELIVERY_PER_FRAME}
+     */
+    public void setValueChangeDelivery(@ValueChangeDelivery int delivery) {
+        if (mValueChangeDelivery == delivery) {
+            return;
+        }
+        mValueChangeDelivery = delivery;
+        flushPendingValueChange();
+    }
+
+    public @ValueChangeDelivery int getValueChangeDelivery() {
+        return mValueChangeDelivery;
+    }
+
     /**
      * Set listener to be notified for scroll state changes.
      *
@@ -1224,12 +1389,28 @@ public class NumberPicker extends LinearLayout {
         mOnScrollListener = onScrollListener;
     }
 
+    /**
+     * Set listener to be notified with per-frame rendering metrics.
+     *
+     * @param renderMetricsListener The listener, or <code>null</code> to stop
+     *                              collecting metrics.
+     */
+    public void setRenderMetricsListener(RenderMetricsListener renderMetricsListener) {
+        mRenderMetricsListener = renderMetricsListener;
+    }
+
     /**
      * Set the formatter to be used for formatting the current value.
      * <p>
      * Note: If you have provided alternative values for the values this
      * formatter is never invoked.
      * </p>
+     * <p>
+     * The formatted labels are cached and reused while scrolling, so the
+     * formatter must return the same label every time it is given the same
+     * value. Call {@link #notifyFormatterChanged()} when its output changes,
+     * e.g. because it depends on state of its own.
+     * </p>
      *
      * @param formatter The formatter object. If formatter is <code>null</code>,
      *                  {@link String#valueOf(int)} will be used.
@@ -1240,8 +1421,60 @@ public class NumberPicker extends LinearLayout {
             return;
         }
         mFormatter = formatter;
+        notifyFormatterChanged();
+    }
+
+    /**
+     * Notifies the picker that the formatter's output changed. Drops the
+     * cached labels so every value is formatted again.
+     */
+    public void notifyFormatterChanged() {
+        invalidateLabels();
         initializeSelectorWheelIndices();
         updateInputTextView();
+        invalidate();
+    }
+
+    /**
+     * Set the filter deciding which values can be selected. Values rejected
+     * by the filter are drawn dimmed, and when the wheel comes to rest on
+     * one it moves on to the closest selectable value, preferring the
+     * direction of the last change. Values set via {@link #setValue(int)}
+     * are not filtered.
+     * <p>
+     * The filter is queried while drawing, so it should be fast. Call
+     * {@link #notifyValueFilterChanged()} when its result changes.
+     * </p>
+     *
+     * @param valueFilter The filter, or <code>null</code> to allow all values.
+     */
+    public void setValueFilter(ValueFilter valueFilter) {
+        mValueFilter = valueFilter;
+        notifyValueFilterChanged();
+    }
+
+    /**
+     * Notifies the picker that the value filter's results changed.
+     */
+    public void notifyValueFilterChanged() {
+        mSelectableTablesDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Redraws the picker if the given value is currently on the selector
+     * wheel, e.g. after the value filter's result for it changed.
+     *
+     * @param value The value that changed.
+     */
+    public void invalidateValue(int value) {
+        mSelectableTablesDirty = true;
+        for (int selectorIndex : mSelectorIndices) {
+            if (selectorIndex == value) {
+                invalidate();
+                return;
+            }
+        }
     }
 
     /**
@@ -1303,6 +1536,7 @@ public class NumberPicker extends LinearLayout {
     private void showSoftInput() {
         InputMethodManager inputMethodManager = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE); // FIXME? InputMethodManager.peekInstance();
         if (inputMethodManager != null) {
+            flushInputTextView();
             if (mHasSelectorWheel) {
                 mInputText.setVisibility(View.VISIBLE);
             }
@@ -1465,11 +1699,14 @@ public class NumberPicker extends LinearLayout {
         mMinValue = minValue;
         if (mMinValue > mValue) {
             mValue = mMinValue;
+            mSettledValue = mValue;
         }
+        invalidateLabels();
         updateWrapSelectorWheel();
         initializeSelectorWheelIndices();
         updateInputTextView();
         tryComputeMaxWidth();
+        mSelectableTablesDirty = true;
         invalidate();
     }
 
@@ -1502,11 +1739,14 @@ public class NumberPicker extends LinearLayout {
         mMaxValue = maxValue;
         if (mMaxValue < mValue) {
             mValue = mMaxValue;
+            mSettledValue = mValue;
         }
+        invalidateLabels();
         updateWrapSelectorWheel();
         initializeSelectorWheelIndices();
         updateInputTextView();
         tryComputeMaxWidth();
+        mSelectableTablesDirty = true;
         invalidate();
     }
 
@@ -1540,6 +1780,7 @@ public class NumberPicker extends LinearLayout {
         } else {
             mInputText.setRawInputType(InputType.TYPE_CLASS_NUMBER);
         }
+        invalidateLabels();
         updateInputTextView();
         initializeSelectorWheelIndices();
         tryComputeMaxWidth();
@@ -1551,13 +1792,10 @@ public class NumberPicker extends LinearLayout {
      * @hide
      */
     public CharSequence getDisplayedValueForCurrentSelection() {
-        // The cache field itself is initialized at declaration time, and since it's final, it
-        // can't be null here. The cache is updated in ensureCachedScrollSelectorValue which is
-        // called, directly or indirectly, on every call to setDisplayedValues, setFormatter,
-        // setMinValue, setMaxValue and setValue, as well as user-driven interaction with the
-        // picker. As such, the contents of the cache are always synced to the latest state of
-        // the widget.
-        return mSelectorIndexToStringCache.get(getValue());
+        // The label cache is cleared whenever setDisplayedValues, setFormatter, setMinValue,
+        // setMaxValue or a configuration change alters the labels, so it is always synced to
+        // the latest state of the widget.
+        return getLabel(getValue());
     }
 
     @Override
@@ -1570,10 +1808,82 @@ public class NumberPicker extends LinearLayout {
         return TOP_AND_BOTTOM_FADING_EDGE_STRENGTH;
     }
 
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // Formatted labels depend on the default locale.
+        invalidateLabels();
+        initializeSelectorWheelIndices();
+        updateInputTextView();
+        invalidate();
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        suspendAnimations();
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        if (!isVisible) {
+            suspendAnimations();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        // Covered by onVisibilityAggregated() on newer platforms.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && visibility != VISIBLE) {
+            suspendAnimations();
+        }
+    }
+
+    /**
+     * Removes pending commands and jumps running scrolls to the value they
+     * would settle on, so that a picker that can't be seen doesn't keep
+     * producing frames or wakeups. A drag in progress ends on the closest
+     * value, as if the finger was lifted without a fling. Nothing needs to be
+     * resumed afterwards.
+     */
+    private void suspendAnimations() {
         removeAllCallbacks();
+
+        final boolean dragging = mScrollState == OnScrollListener.SCROLL_STATE_TOUCH_SCROLL;
+        final boolean scrolling = !mFlingScroller.isFinished() || !mAdjustScroller.isFinished();
+        if (!scrolling && !dragging) {
+            return;
+        }
+        if (!mFlingScroller.isFinished()) {
+            moveToFinalScrollerPosition(mFlingScroller);
+        }
+        if (!mAdjustScroller.isFinished()) {
+            moveToFinalScrollerPosition(mAdjustScroller);
+        }
+        if (dragging) {
+            // Ignore the rest of the gesture, which would otherwise resume
+            // the drag or fling with the velocity tracked so far.
+            mIgnoreMoveEvents = true;
+            if (mVelocityTracker != null) {
+                mVelocityTracker.recycle();
+                mVelocityTracker = null;
+            }
+            if (ensureScrollWheelAdjusted()) {
+                // Apply the whole adjustment now instead of animating it.
+                mAdjustScroller.forceFinished(true);
+                scrollBy(0, mAdjustScroller.getFinalY());
+            }
+        }
+        final int delta = getSelectableDelta(mValue);
+        if (delta != 0) {
+            setValueInternal(mValue + delta, true);
+        }
+        updateInputTextView();
+        onScrollStateChange(OnScrollListener.SCROLL_STATE_IDLE);
+        notifySettledIfIdle();
     }
 
     @CallSuper
@@ -1611,6 +1921,23 @@ public class NumberPicker extends LinearLayout {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        final RenderMetricsListener metricsListener = mRenderMetricsListener;
+        final int cause = mInvalidationCause;
+        mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_API;
+
+        if (metricsListener == null) {
+            drawSelectorWheel(canvas);
+            return;
+        }
+
+        mTextOpCount = 0;
+        final long startTime = System.nanoTime();
+        drawSelectorWheel(canvas);
+        final long drawTime = System.nanoTime() - startTime;
+        metricsListener.onFrameRendered(this, drawTime, mTextOpCount, 0, cause);
+    }
+
+    private void drawSelectorWheel(Canvas canvas) {
         if (!mHasSelectorWheel) {
             super.onDraw(canvas);
             return;
@@ -1645,9 +1972,11 @@ public class NumberPicker extends LinearLayout {
 
         // draw the selector wheel
         int[] selectorIndices = mSelectorIndices;
+        final ValueFilter valueFilter = mValueFilter;
+        final int alpha = mSelectorWheelPaint.getAlpha();
         for (int i = 0; i < selectorIndices.length; i++) {
             int selectorIndex = selectorIndices[i];
-            String scrollSelectorValue = mSelectorIndexToStringCache.get(selectorIndex);
+            String scrollSelectorValue = getLabel(selectorIndex);
             // Do not draw the middle item if input is visible since the input
             // is shown only if the wheel is static and it covers the middle
             // item. Otherwise, if the user starts editing the text via the
@@ -1655,7 +1984,15 @@ public class NumberPicker extends LinearLayout {
             // with the new one.
             if ((showSelectorWheel && i != SELECTOR_MIDDLE_ITEM_INDEX) ||
                     (i == SELECTOR_MIDDLE_ITEM_INDEX && mInputText.getVisibility() != VISIBLE)) {
-                canvas.drawText(scrollSelectorValue, x, y, mSelectorWheelPaint);
+                if (valueFilter != null && selectorIndex >= mMinValue
+                        && selectorIndex <= mMaxValue && !valueFilter.isSelectable(selectorIndex)) {
+                    mSelectorWheelPaint.setAlpha((int) (alpha * mUnselectableAlpha + 0.5f));
+                    canvas.drawText(scrollSelectorValue, x, y, mSelectorWheelPaint);
+                    mSelectorWheelPaint.setAlpha(alpha);
+                } else {
+                    canvas.drawText(scrollSelectorValue, x, y, mSelectorWheelPaint);
+                }
+                mTextOpCount++;
             }
             y += mSelectorElementHeight;
         }
@@ -1760,11 +2097,10 @@ public class NumberPicker extends LinearLayout {
     }
 
     /**
-     * Resets the selector indices and clear the cached string representation of
-     * these indices.
+     * Resets the selector indices and ensures the string representation of
+     * these indices is cached.
      */
     private void initializeSelectorWheelIndices() {
-        mSelectorIndexToStringCache.clear();
         int[] selectorIndices = mSelectorIndices;
         int current = getValue();
         for (int i = 0; i < mSelectorIndices.length; i++) {
@@ -1773,7 +2109,7 @@ public class NumberPicker extends LinearLayout {
                 selectorIndex = getWrappedSelectorIndex(selectorIndex);
             }
             selectorIndices[i] = selectorIndex;
-            ensureCachedScrollSelectorValue(selectorIndices[i]);
+            getLabel(selectorIndices[i]);
         }
     }
 
@@ -1796,9 +2132,22 @@ public class NumberPicker extends LinearLayout {
         }
         int previous = mValue;
         mValue = current;
-        updateInputTextView();
+        if (current != previous) {
+            // A jump of more than half the range wrapped around.
+            final boolean wrapped = Math.abs(current - previous) > (mMaxValue - mMinValue) / 2;
+            mLastChangeDirection = (current > previous) != wrapped ? 1 : -1;
+        }
+        if (mHasSelectorWheel && isScrolling()) {
+            mInputTextDirty = true;
+        } else {
+            updateInputTextView();
+        }
         if (notifyChange) {
             notifyChange(previous, current);
+        } else {
+            // Programmatic changes are neither reported nor settled on.
+            mSettledValue = current;
+            mPendingPreviousValue = current;
         }
         initializeSelectorWheelIndices();
         invalidate();
@@ -1888,13 +2237,123 @@ public class NumberPicker extends LinearLayout {
         if (scroller == mFlingScroller) {
             if (!ensureScrollWheelAdjusted()) {
                 updateInputTextView();
+                ensureSelectableValue();
             }
             onScrollStateChange(OnScrollListener.SCROLL_STATE_IDLE);
         } else {
             if (mScrollState != OnScrollListener.SCROLL_STATE_TOUCH_SCROLL) {
                 updateInputTextView();
+                ensureSelectableValue();
             }
         }
+        notifySettledIfIdle();
+    }
+
+    /**
+     * Moves on to the closest value accepted by the value filter if the
+     * wheel came to rest on a value the filter rejects. Stays put if no
+     * value is selectable.
+     */
+    private void ensureSelectableValue() {
+        final int delta = getSelectableDelta(mValue);
+        if (delta != 0) {
+            changeValueBy(delta);
+        }
+    }
+
+    /**
+     * Returns the number of steps from a value to the closest value accepted
+     * by the value filter, preferring the direction of the last change on
+     * ties and wrapping around if the selector wheel wraps.
+     *
+     * @param value A value between the minimum and maximum value.
+     * @return The signed number of steps, or 0 if the value is selectable or
+     *         no value is.
+     */
+    private int getSelectableDelta(int value) {
+        if (mValueFilter == null) {
+            return 0;
+        }
+        ensureSelectableTables();
+
+        final int count = mMaxValue - mMinValue + 1;
+        final int offset = value - mMinValue;
+        int next = mNextSelectable[offset];
+        int previous = mPreviousSelectable[offset];
+        if (next == offset) {
+            return 0;
+        }
+        if (mWrapSelectorWheel) {
+            if (next < 0 && mNextSelectable[0] >= 0) {
+                next = mNextSelectable[0] + count;
+            }
+            if (previous < 0 && mPreviousSelectable[count - 1] >= 0) {
+                previous = mPreviousSelectable[count - 1] - count;
+            }
+        }
+
+        if (next < 0 && previous < 0) {
+            return 0;
+        } else if (next < 0) {
+            return previous - offset;
+        } else if (previous < 0) {
+            return next - offset;
+        }
+        final int up = next - offset;
+        final int down = offset - previous;
+        if (up == down) {
+            return mLastChangeDirection > 0 ? up : -down;
+        }
+        return up < down ? up : -down;
+    }
+
+    /**
+     * Builds the tables of the closest selectable values if the value
+     * filter or the range changed since they were last built.
+     */
+    private void ensureSelectableTables() {
+        if (!mSelectableTablesDirty) {
+            return;
+        }
+
+        final int count = mMaxValue - mMinValue + 1;
+        if (mNextSelectable == null || mNextSelectable.length != count) {
+            mNextSelectable = new int[count];
+            mPreviousSelectable = new int[count];
+        }
+
+        final ValueFilter valueFilter = mValueFilter;
+        int next = -1;
+        for (int i = count - 1; i >= 0; i--) {
+            if (valueFilter.isSelectable(mMinValue + i)) {
+                next = i;
+            }
+            mNextSelectable[i] = next;
+        }
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            if (mNextSelectable[i] == i) {
+                previous = i;
+            }
+            mPreviousSelectable[i] = previous;
+        }
+        mSelectableTablesDirty = false;
+    }
+
+    /**
+     * Changes the current value by the given number of steps, scrolling the
+     * selector wheel if there is one.
+     */
+    private void changeValueBy(int delta) {
+        if (mHasSelectorWheel) {
+            mInputText.setVisibility(View.INVISIBLE);
+            mPreviousScrollerY = 0;
+            mFlingScroller.startScroll(0, 0, 0, -delta * mSelectorElementHeight,
+                    SNAP_SCROLL_DURATION);
+            invalidate();
+        } else {
+            setValueInternal(mValue + delta, true);
+        }
     }
 
     /**
@@ -1908,6 +2367,9 @@ public class NumberPicker extends LinearLayout {
         if (mOnScrollListener != null) {
             mOnScrollListener.onScrollStateChange(this, scrollState);
         }
+        if (scrollState == OnScrollListener.SCROLL_STATE_IDLE) {
+            notifySettledIfIdle();
+        }
     }
 
     /**
@@ -1916,15 +2378,55 @@ public class NumberPicker extends LinearLayout {
     private void fling(int velocityY) {
         mPreviousScrollerY = 0;
 
-        if (velocityY > 0) {
-            mFlingScroller.fling(0, 0, 0, velocityY, 0, 0, 0, Integer.MAX_VALUE);
-        } else {
-            mFlingScroller.fling(0, Integer.MAX_VALUE, 0, velocityY, 0, 0, 0, Integer.MAX_VALUE);
-        }
+        final Scroller scroller = mFlingScroller;
+        scroller.fling(0, 0, 0, velocityY, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        // The scroller knows where the fling would stop. Round that to the
+        // closest row, clamp it to the range unless the wheel wraps and move
+        // on to a selectable value, then scale the deceleration curve to end
+        // exactly there so that no adjustment is needed afterwards. Scrolling
+        // down moves towards smaller values.
+        final int elementHeight = mSelectorElementHeight;
+        final int offset = mCurrentScrollOffset - mInitialScrollOffset;
+        final int distance = scroller.getFinalY() - scroller.getStartY();
+        int rows = Math.round((float) (offset + distance) / elementHeight);
+        if (!mWrapSelectorWheel) {
+            rows = Math.max(mValue - mMaxValue, Math.min(rows, mValue - mMinValue));
+        }
+        mLastChangeDirection = (rows != 0 ? rows : velocityY) > 0 ? -1 : 1;
+        rows -= getSelectableDelta(wrapValue(mValue - rows));
+        mFlingTargetValue = wrapValue(mValue - rows);
+        scroller.setFinalY(scroller.getStartY() + rows * elementHeight - offset);
 
         invalidate();
     }
 
+    /**
+     * Returns the value the selector wheel will settle on. While flinging,
+     * this is the value the fling was computed to stop at, so that data for
+     * it can be prepared before it is reached; otherwise it is the current
+     * value.
+     *
+     * @return The value the wheel settles on.
+     * @see OnScrollListener#SCROLL_STATE_FLING
+     */
+    public int getFlingTargetValue() {
+        return mScrollState == OnScrollListener.SCROLL_STATE_FLING ? mFlingTargetValue : mValue;
+    }
+
+    /**
+     * @return The value any number of steps away from the min value wraps
+     *         around to, or the value clamped to the range if the selector
+     *         wheel doesn't wrap.
+     */
+    private int wrapValue(int value) {
+        if (!mWrapSelectorWheel) {
+            return Math.max(mMinValue, Math.min(value, mMaxValue));
+        }
+        final int count = mMaxValue - mMinValue + 1;
+        return mMinValue + ((value - mMinValue) % count + count) % count;
+    }
+
     /**
      * @return The wrapped index <code>selectorIndex</code> value.
      */
@@ -1950,7 +2452,7 @@ public class NumberPicker extends LinearLayout {
             nextScrollSelectorIndex = mMinValue;
         }
         selectorIndices[selectorIndices.length - 1] = nextScrollSelectorIndex;
-        ensureCachedScrollSelectorValue(nextScrollSelectorIndex);
+        getLabel(nextScrollSelectorIndex);
     }
 
     /**
@@ -1966,30 +2468,38 @@ public class NumberPicker extends LinearLayout {
             nextScrollSelectorIndex = mMaxValue;
         }
         selectorIndices[0] = nextScrollSelectorIndex;
-        ensureCachedScrollSelectorValue(nextScrollSelectorIndex);
+        getLabel(nextScrollSelectorIndex);
     }
 
     /**
-     * Ensures we have a cached string representation of the given <code>
-     * selectorIndex</code> to avoid multiple instantiations of the same string.
+     * Returns the string representation of the given <code>selectorIndex</code>,
+     * formatting it only if it isn't cached yet to avoid multiple instantiations
+     * of the same string.
      */
-    private void ensureCachedScrollSelectorValue(int selectorIndex) {
-        SparseArray<String> cache = mSelectorIndexToStringCache;
-        String scrollSelectorValue = cache.get(selectorIndex);
-        if (scrollSelectorValue != null) {
-            return;
-        }
+    private String getLabel(int selectorIndex) {
         if (selectorIndex < mMinValue || selectorIndex > mMaxValue) {
-            scrollSelectorValue = "";
-        } else {
-            if (mDisplayedValues != null) {
-                int displayedValueIndex = selectorIndex - mMinValue;
-                scrollSelectorValue = mDisplayedValues[displayedValueIndex];
-            } else {
-                scrollSelectorValue = formatNumber(selectorIndex);
-            }
+            return "";
         }
-        cache.put(selectorIndex, scrollSelectorValue);
+        if (mDisplayedValues != null) {
+            return mDisplayedValues[selectorIndex - mMinValue];
+        }
+
+        final int index = (selectorIndex - mMinValue) & (LABEL_CACHE_SIZE - 1);
+        String label = mLabels[index];
+        if (label == null || mLabelValues[index] != selectorIndex) {
+            label = formatNumber(selectorIndex);
+            mLabels[index] = label;
+            mLabelValues[index] = selectorIndex;
+        }
+        return label;
+    }
+
+    /**
+     * Clears the cached labels after the formatter, the range, the displayed
+     * values or the locale changed.
+     */
+    private void invalidateLabels() {
+        Arrays.fill(mLabels, null);
     }
 
     private String formatNumber(int value) {
@@ -2017,13 +2527,13 @@ public class NumberPicker extends LinearLayout {
      * @return Whether the text was updated.
      */
     private boolean updateInputTextView() {
+        mInputTextDirty = false;
         /*
          * If we don't have displayed values then use the current number else
          * find the correct value in the displayed values for the current
          * number.
          */
-        String text = (mDisplayedValues == null) ? formatNumber(mValue)
-                : mDisplayedValues[mValue - mMinValue];
+        String text = getLabel(mValue);
         if (!TextUtils.isEmpty(text) && !text.equals(mInputText.getText().toString())) {
             mInputText.setText(text);
             return true;
@@ -2032,14 +2542,82 @@ public class NumberPicker extends LinearLayout {
         return false;
     }
 
+    /**
+     * Updates the input text if changes of the value were deferred while the
+     * selector wheel scrolled.
+     */
+    private void flushInputTextView() {
+        if (mInputTextDirty) {
+            updateInputTextView();
+        }
+    }
+
     /**
      * Notifies the listener, if registered, of a change of the value of this
      * NumberPicker.
      */
     private void notifyChange(int previous, int current) {
-        if (mOnValueChangeListener != null) {
+        if (mValueChangeDelivery == VALUE_CHANGE_DELIVERY_PER_FRAME && isScrolling()) {
+            if (!mValueChangePending) {
+                mValueChangePending = true;
+                mPendingPreviousValue = previous;
+                postOnAnimation(mDeliverValueChangeCommand);
+            }
+            return;
+        }
+
+        boolean merged = false;
+        if (mValueChangePending) {
+            // Report the pending change and this one together.
+            previous = mPendingPreviousValue;
+            merged = true;
+            mValueChangePending = false;
+            removeCallbacks(mDeliverValueChangeCommand);
+        }
+        if (mOnValueChangeListener != null && (!merged || previous != mValue)) {
             mOnValueChangeListener.onValueChange(this, previous, mValue);
         }
+        notifySettledIfIdle();
+    }
+
+    /**
+     * Reports a conflated value change right away, if one is pending.
+     */
+    private void flushPendingValueChange() {
+        if (!mValueChangePending) {
+            return;
+        }
+        mValueChangePending = false;
+        removeCallbacks(mDeliverValueChangeCommand);
+        if (mPendingPreviousValue != mValue && mOnValueChangeListener != null) {
+            mOnValueChangeListener.onValueChange(this, mPendingPreviousValue, mValue);
+        }
+    }
+
+    /**
+     * @return Whether the wheel is being dragged or a scroller is running.
+     */
+    private boolean isScrolling() {
+        return mScrollState == OnScrollListener.SCROLL_STATE_TOUCH_SCROLL
+                || !mFlingScroller.isFinished() || !mAdjustScroller.isFinished();
+    }
+
+    /**
+     * Reports pending changes and notifies the settled listener if the wheel
+     * came to rest on a new value.
+     */
+    private void notifySettledIfIdle() {
+        if (isScrolling()) {
+            return;
+        }
+        flushInputTextView();
+        flushPendingValueChange();
+        if (mSettledValue != mValue) {
+            mSettledValue = mValue;
+            if (mOnValueSettledListener != null) {
+                mOnValueSettledListener.onValueSettled(this, mValue);
+            }
+        }
     }
 
     /**
@@ -2092,6 +2670,8 @@ public class NumberPicker extends LinearLayout {
      * Removes all pending callback from the message queue.
      */
     private void removeAllCallbacks() {
+        // Report a conflated value change now rather than dropping it.
+        flushPendingValueChange();
         if (mChangeCurrentByOneFromLongPressCommand != null) {
             removeCallbacks(mChangeCurrentByOneFromLongPressCommand);
         }
@@ -2252,11 +2832,19 @@ public class NumberPicker extends LinearLayout {
     private boolean ensureScrollWheelAdjusted() {
         // adjust to the closest value
         int deltaY = mInitialScrollOffset - mCurrentScrollOffset;
+        int valueStep = 0;
+        if (Math.abs(deltaY) > mSelectorElementHeight / 2) {
+            deltaY += (deltaY > 0) ? -mSelectorElementHeight : mSelectorElementHeight;
+            valueStep = (deltaY < 0) ? 1 : -1;
+        }
+        // continue on to the closest selectable value in the same motion
+        int target = mValue + valueStep;
+        if (target < mMinValue || target > mMaxValue) {
+            target = mWrapSelectorWheel ? getWrappedSelectorIndex(target) : mValue;
+        }
+        deltaY -= getSelectableDelta(target) * mSelectorElementHeight;
         if (deltaY != 0) {
             mPreviousScrollerY = 0;
-            if (Math.abs(deltaY) > mSelectorElementHeight / 2) {
-                deltaY += (deltaY > 0) ? -mSelectorElementHeight : mSelectorElementHeight;
-            }
             mAdjustScroller.startScroll(0, 0, 0, deltaY, SELECTOR_ADJUSTMENT_DURATION_MILLIS);
             invalidate();
             return true;
@@ -2752,6 +3340,7 @@ public class NumberPicker extends LinearLayout {
                 }
                 return;
                 case VIRTUAL_VIEW_ID_INPUT: {
+                    flushInputTextView();
                     CharSequence text = mInputText.getText();
                     if (!TextUtils.isEmpty(text) &&
                             text.toString().toLowerCase().contains(searchedLowerCase)) {
@@ -2779,6 +3368,7 @@ public class NumberPicker extends LinearLayout {
 
         private AccessibilityNodeInfo createAccessibiltyNodeInfoForInputText(
                 int left, int top, int right, int bottom) {
+            flushInputTextView();
             AccessibilityNodeInfoCompat info = AccessibilityNodeInfoCompat.wrap(mInputText.createAccessibilityNodeInfo());
             info.setSource(NumberPicker.this, VIRTUAL_VIEW_ID_INPUT);
             if (mAccessibilityFocusedView != VIRTUAL_VIEW_ID_INPUT) {
@@ -2933,6 +3523,6 @@ public class NumberPicker extends LinearLayout {
     }
 
     static private String formatNumberWithLocale(int value) {
-        return String.format(Locale.getDefault(), "%d", value);
+        return DigitFormatter.getInstance().format(value);
     }
 }
@@ -21,6 +21,7 @@ import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.KeyEvent;
 
+import com.example.timepicker.clockface.DigitFormatter;
 import com.example.timepicker.timepicker.util.StateSet;
 
 /**
@@ -193,16 +194,14 @@ public class NumericTextView extends androidx.appcompat.widget.AppCompatTextView
      * properties (leading zeroes, max digits) change.
      */
     private void updateDisplayedValue() {
-        final String format;
+        // Always use the locale's digits rather than Integer.toString()
+        // to obtain correctly localized values.
+        final DigitFormatter formatter = DigitFormatter.getInstance();
         if (mShowLeadingZeroes) {
-            format = "%0" + mMaxCount + "d";
+            setText(formatter.format(mValue, mMaxCount));
         } else {
-            format = "%d";
+            setText(formatter.format(mValue));
         }
-
-        // Always use String.format() rather than Integer.toString()
-        // to obtain correctly localized values.
-        setText(String.format(format, mValue));
     }
 
     /**
@@ -215,8 +214,9 @@ public class NumericTextView extends androidx.appcompat.widget.AppCompatTextView
         final CharSequence previousText = getText();
         int maxWidth = 0;
 
+        final DigitFormatter formatter = DigitFormatter.getInstance();
         for (int i = 0; i < mMaxValue; i++) {
-            setText(String.format("%0" + mMaxCount + "d", i));
+            setText(formatter.format(i, mMaxCount));
             measure(MeasureSpec.UNSPECIFIED, MeasureSpec.UNSPECIFIED);
 
             final int width = getMeasuredWidth();
@@ -283,7 +283,7 @@ public class NumericTextView extends androidx.appcompat.widget.AppCompatTextView
             // If the user types 01, we should always show the leading 0 even if
             // getShowLeadingZeroes() is false. Preserve typed leading zeroes by
             // using the number of digits entered as the format width.
-            formattedValue = String.format("%0" + mCount + "d", mValue);
+            formattedValue = DigitFormatter.getInstance().format(mValue, mCount);
         } else {
             formattedValue = "";
         }
@@ -0,0 +1,329 @@
+package com.example.timepicker.timepicker;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import androidx.core.content.ContextCompat;
+import androidx.core.os.ConfigurationCompat;
+
+import com.example.timepicker.R;
+import com.example.timepicker.timepicker.util.StateSet;
+import com.example.timepicker.timepicker.util.Utils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable resolved style of a {@link RadialTimePickerView}: typeface,
+ * dimensions, colors and prototype text paints.
+ * <p>
+ * Styles are cached per theme and configuration, so pickers sharing a theme
+ * resolve their attributes and resources only once. Per-ring values are
+ * only exposed through accessors, and views copy the prototype paints into
+ * their own.
+ */
+final class RadialStyle {
+    /** Indices into the per-ring arrays. */
+    static final int HOURS = RadialTimePickerView.HOURS;
+    static final int MINUTES = RadialTimePickerView.MINUTES;
+    static final int HOURS_INNER = 2;
+
+    /** Text color table offset for numerals under the selector. */
+    static final int TEXT_COLOR_ACTIVATED = 1;
+    /** Text color table offset for numerals while input is disabled. */
+    static final int TEXT_COLOR_DISABLED = 2;
+
+    /** "Something is wrong" color used when a color attribute is missing. */
+    private static final int MISSING_COLOR = Color.MAGENTA;
+
+    /** Attributes that, when set directly on a view, prevent caching. */
+    private static final int[] STYLEABLE_ATTRS = {
+            R.attr.numbersTextColor,
+            R.attr.numbersInnerTextColor,
+            R.attr.numbersBackgroundColor,
+            R.attr.numbersSelectorColor,
+    };
+
+    private static final WeakHashMap<Resources.Theme, Map<Key, RadialStyle>> sCache =
+            new WeakHashMap<>();
+
+    final Typeface mTypeface;
+
+    final int mSelectorRadius;
+    final int mSelectorStroke;
+    final int mSelectorDotRadius;
+    final int mCenterDotRadius;
+
+    private final int[] mTextSize = new int[3];
+    private final int[] mTextInset = new int[3];
+
+    private final ColorStateList[] mTextColor = new ColorStateList[3];
+
+    /**
+     * Numeral colors resolved from {@link #mTextColor}, indexed by ring and
+     * then by a combination of {@link #TEXT_COLOR_ACTIVATED} and
+     * {@link #TEXT_COLOR_DISABLED}.
+     */
+    private final int[][] mTextColorTable = new int[3][4];
+
+    final int mSelectorColor;
+    final int mSelectorDotColor;
+    final int mBackgroundColor;
+
+    final float mDisabledAlpha;
+
+    /** Prototype numeral paints per ring. */
+    private final Paint[] mTextPaints = new Paint[3];
+
+    /**
+     * Returns the style for the given attributes, sharing a cached instance
+     * when the attributes don't override any picker styleable attribute.
+     */
+    static RadialStyle obtain(Context context, AttributeSet attrs, int defStyleAttr,
+            int defStyleRes) {
+        if (hasStyleableOverrides(attrs)) {
+            return new RadialStyle(context, attrs, defStyleAttr, defStyleRes);
+        }
+
+        final Resources.Theme theme = context.getTheme();
+        final Key key = new Key(defStyleAttr, defStyleRes,
+                context.getResources().getConfiguration());
+        synchronized (sCache) {
+            Map<Key, RadialStyle> styles = sCache.get(theme);
+            if (styles == null) {
+                styles = new HashMap<>();
+                sCache.put(theme, styles);
+            }
+
+            RadialStyle style = styles.get(key);
+            if (style == null) {
+                style = new RadialStyle(context, null, defStyleAttr, defStyleRes);
+                styles.put(key, style);
+            }
+            return style;
+        }
+    }
+
+    private static boolean hasStyleableOverrides(AttributeSet attrs) {
+        if (attrs == null) {
+            return false;
+        }
+        if (attrs.getStyleAttribute() != 0) {
+            return true;
+        }
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            final int nameResource = attrs.getAttributeNameResource(i);
+            for (int attr : STYLEABLE_ATTRS) {
+                if (attr == nameResource) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private RadialStyle(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        final TypedArray a = context.obtainStyledAttributes(attrs,
+                R.styleable.TimePicker, defStyleAttr, defStyleRes);
+
+        final ColorStateList numbersTextColor = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersTextColor);
+        final ColorStateList numbersInnerTextColor = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersInnerTextColor);
+        mTextColor[HOURS] = numbersTextColor == null ?
+                ColorStateList.valueOf(MISSING_COLOR) : numbersTextColor;
+        mTextColor[HOURS_INNER] = numbersInnerTextColor == null ?
+                ColorStateList.valueOf(MISSING_COLOR) : numbersInnerTextColor;
+        mTextColor[MINUTES] = mTextColor[HOURS];
+
+        // Set up various colors derived from the selector "activated" state.
+        final int[] stateSetActivated = StateSet.get(
+                StateSet.VIEW_STATE_ENABLED | StateSet.VIEW_STATE_ACTIVATED);
+        final ColorStateList selectorColors = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersSelectorColor);
+        if (selectorColors != null) {
+            mSelectorColor = selectorColors.getColorForState(stateSetActivated, 0);
+        } else {
+            mSelectorColor = MISSING_COLOR;
+        }
+        mSelectorDotColor = mTextColor[HOURS].getColorForState(stateSetActivated, 0);
+
+        //Timepicker background
+        mBackgroundColor = a.getColor(R.styleable.TimePicker_numbersBackgroundColor,
+                ContextCompat.getColor(context, R.color.timepicker_default_numbers_background_color_material));
+
+        a.recycle();
+
+        // Pull disabled alpha from theme.
+        final TypedValue outValue = new TypedValue();
+        context.getTheme().resolveAttribute(android.R.attr.disabledAlpha, outValue, true);
+        mDisabledAlpha = outValue.getFloat();
+
+        final Resources res = context.getResources();
+        mSelectorRadius = res.getDimensionPixelSize(R.dimen.timepicker_selector_radius);
+        mSelectorStroke = res.getDimensionPixelSize(R.dimen.timepicker_selector_stroke);
+        mSelectorDotRadius = res.getDimensionPixelSize(R.dimen.timepicker_selector_dot_radius);
+        mCenterDotRadius = res.getDimensionPixelSize(R.dimen.timepicker_center_dot_radius);
+
+        mTextSize[HOURS] = res.getDimensionPixelSize(R.dimen.timepicker_text_size_normal);
+        mTextSize[MINUTES] = mTextSize[HOURS];
+        mTextSize[HOURS_INNER] = res.getDimensionPixelSize(R.dimen.timepicker_text_size_inner);
+
+        mTextInset[HOURS] = res.getDimensionPixelSize(R.dimen.timepicker_text_inset_normal);
+        mTextInset[MINUTES] = mTextInset[HOURS];
+        mTextInset[HOURS_INNER] = res.getDimensionPixelSize(R.dimen.timepicker_text_inset_inner);
+
+        // Use the real bold face rather than synthesizing it.
+        mTypeface = Typeface.create("sans-serif", Typeface.BOLD);
+
+        for (int i = 0; i < mTextPaints.length; i++) {
+            final Paint paint = new Paint();
+            paint.setAntiAlias(true);
+            paint.setTextAlign(Paint.Align.CENTER);
+            paint.setTypeface(mTypeface);
+            paint.setTextSize(mTextSize[i]);
+            mTextPaints[i] = paint;
+        }
+
+        resolveTextColorTable();
+    }
+
+    /**
+     * Resolves the numeral colors for every ring and state into
+     * {@link #mTextColorTable} so that drawing only needs array reads.
+     */
+    private void resolveTextColorTable() {
+        final int[] stateSetNormal = StateSet.get(StateSet.VIEW_STATE_ENABLED);
+        final int[] stateSetActivated = StateSet.get(
+                StateSet.VIEW_STATE_ENABLED | StateSet.VIEW_STATE_ACTIVATED);
+        final int disabledAlpha = (int) (255f * mDisabledAlpha + 0.5f);
+
+        for (int i = 0; i < mTextColorTable.length; i++) {
+            final ColorStateList textColor = mTextColor[i];
+            final int[] colors = mTextColorTable[i];
+            colors[0] = textColor.getColorForState(stateSetNormal, 0);
+            colors[TEXT_COLOR_ACTIVATED] = textColor.getColorForState(stateSetActivated, 0);
+            colors[TEXT_COLOR_DISABLED] = applyAlpha(colors[0], disabledAlpha);
+            colors[TEXT_COLOR_DISABLED | TEXT_COLOR_ACTIVATED] =
+                    applyAlpha(colors[TEXT_COLOR_ACTIVATED], disabledAlpha);
+        }
+    }
+
+    /**
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
+     * @return the numeral text size of the ring in pixels
+     */
+    int getTextSize(int ring) {
+        return mTextSize[ring];
+    }
+
+    /**
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
+     * @return the inset of the ring's numerals from the dial edge in pixels
+     */
+    int getTextInset(int ring) {
+        return mTextInset[ring];
+    }
+
+    /**
+     * Returns a resolved numeral color.
+     *
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
+     * @param state a combination of {@link #TEXT_COLOR_ACTIVATED} and
+     *              {@link #TEXT_COLOR_DISABLED}, or 0 for the normal color
+     */
+    int getTextColor(int ring, int state) {
+        return mTextColorTable[ring][state];
+    }
+
+    /**
+     * Copies the prototype numeral paint of a ring into a view's paint.
+     *
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
+     */
+    void copyTextPaint(int ring, Paint outPaint) {
+        outPaint.set(mTextPaints[ring]);
+    }
+
+    /**
+     * Returns the color with its alpha channel multiplied by the given alpha.
+     */
+    private static int applyAlpha(int argb, int alpha) {
+        final int multipliedAlpha = (int) (Color.alpha(argb) * (alpha / 255.0) + 0.5);
+        return (argb & 0x00FFFFFF) | (multipliedAlpha << 24);
+    }
+
+    /**
+     * Cache key within a theme: the default style and the parts of the
+     * configuration that affect resolved dimensions, colors and typefaces,
+     * including those that select size and orientation qualified resources.
+     */
+    private static final class Key {
+        private final int mDefStyleAttr;
+        private final int mDefStyleRes;
+        private final int mDensityDpi;
+        private final float mFontScale;
+        private final int mUiMode;
+        private final int mSmallestScreenWidthDp;
+        private final int mScreenWidthDp;
+        private final int mScreenHeightDp;
+        private final int mOrientation;
+        private final Locale mLocale;
+
+        Key(int defStyleAttr, int defStyleRes, Configuration config) {
+            mDefStyleAttr = defStyleAttr;
+            mDefStyleRes = defStyleRes;
+            mDensityDpi = config.densityDpi;
+            mFontScale = config.fontScale;
+            mUiMode = config.uiMode;
+            mSmallestScreenWidthDp = config.smallestScreenWidthDp;
+            mScreenWidthDp = config.screenWidthDp;
+            mScreenHeightDp = config.screenHeightDp;
+            mOrientation = config.orientation;
+            mLocale = ConfigurationCompat.getLocales(config).get(0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mDefStyleAttr == other.mDefStyleAttr
+                    && mDefStyleRes == other.mDefStyleRes
+                    && mDensityDpi == other.mDensityDpi
+                    && Float.compare(mFontScale, other.mFontScale) == 0
+                    && mUiMode == other.mUiMode
+                    && mSmallestScreenWidthDp == other.mSmallestScreenWidthDp
+                    && mScreenWidthDp == other.mScreenWidthDp
+                    && mScreenHeightDp == other.mScreenHeightDp
+                    && mOrientation == other.mOrientation
+                    && (mLocale == null ? other.mLocale == null : mLocale.equals(other.mLocale));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mDefStyleAttr;
+            result = 31 * result + mDefStyleRes;
+            result = 31 * result + mDensityDpi;
+            result = 31 * result + Float.floatToIntBits(mFontScale);
+            result = 31 * result + mUiMode;
+            result = 31 * result + mSmallestScreenWidthDp;
+            result = 31 * result + mScreenWidthDp;
+            result = 31 * result + mScreenHeightDp;
+            result = 31 * result + mOrientation;
+            result = 31 * result + (mLocale != null ? mLocale.hashCode() : 0);
+            return result;
+        }
+    }
+}
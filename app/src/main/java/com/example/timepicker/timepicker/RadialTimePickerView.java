@@ -16,25 +16,22 @@
 
 package com.example.timepicker.timepicker;
 
-import android.animation.ObjectAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.ColorStateList;
-import android.content.res.Resources;
-import android.content.res.TypedArray;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.graphics.Region;
-import android.graphics.Typeface;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.Property;
-import android.util.TypedValue;
 import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
 import android.view.PointerIcon;
@@ -43,19 +40,26 @@ import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
 
 import androidx.annotation.IntDef;
-import androidx.core.content.ContextCompat;
 import androidx.core.math.MathUtils;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
 import androidx.customview.widget.ExploreByTouchHelper;
+import androidx.dynamicanimation.animation.DynamicAnimation;
 import androidx.dynamicanimation.animation.FloatPropertyCompat;
+import androidx.dynamicanimation.animation.SpringAnimation;
+import androidx.dynamicanimation.animation.SpringForce;
 
 import com.example.timepicker.R;
-import com.example.timepicker.timepicker.util.StateSet;
+import com.example.timepicker.clockface.ClockFaceGeometry;
+import com.example.timepicker.clockface.DigitFormatter;
+import com.example.timepicker.clockface.PolarHitTestGrid;
+import com.example.timepicker.clockface.SnapTable;
+import com.example.timepicker.clockface.TimeAvailability;
 import com.example.timepicker.timepicker.util.Utils;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
@@ -76,49 +80,96 @@ public class RadialTimePickerView extends View {
     @Retention(RetentionPolicy.SOURCE)
     @interface PickerType {}
 
-    private static final int HOURS_INNER = 2;
+    /**
+     * Activated numerals are drawn by clipping to the selector path: the
+     * inactive numerals are drawn outside the selector and the activated
+     * numerals are drawn again inside it.
+     */
+    public static final int ACTIVATED_NUMERALS_CLIP = 0;
+
+    /**
+     * Activated numerals are drawn once into a layer bounded by the selector
+     * circle and masked by it. Inactive numerals are drawn without clipping
+     * and covered by the selector.
+     * <p>
+     * This relies on the selector being opaque. With a translucent selector
+     * color the numerals are drawn as with {@link #ACTIVATED_NUMERALS_CLIP}.
+     */
+    public static final int ACTIVATED_NUMERALS_MASK = 1;
+
+    /** @hide */
+    @IntDef({ACTIVATED_NUMERALS_CLIP, ACTIVATED_NUMERALS_MASK})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface ActivatedNumeralsMode {}
+
+    /** Numerals, selector circle and activated numerals are drawn. */
+    public static final int LEVEL_OF_DETAIL_FULL = 0;
+
+    /**
+     * Tick marks replace the numerals and the selector is drawn as a plain
+     * hand, so drawing needs no text, clip or layer passes.
+     */
+    public static final int LEVEL_OF_DETAIL_REDUCED = 1;
+
+    /** Only the background and the hand are drawn. */
+    public static final int LEVEL_OF_DETAIL_MINIMAL = 2;
+
+    /** @hide */
+    @IntDef({LEVEL_OF_DETAIL_FULL, LEVEL_OF_DETAIL_REDUCED, LEVEL_OF_DETAIL_MINIMAL})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface LevelOfDetail {}
+
+    /** Default dial diameters below which less detail is drawn. */
+    private static final float DEFAULT_REDUCED_DETAIL_BELOW_DP = 120;
+    private static final float DEFAULT_MINIMAL_DETAIL_BELOW_DP = 40;
+
+    /** Tick mark and hand extents as fractions of the dial radius. */
+    private static final float TICK_OUTER_RATIO = 0.9f;
+    private static final float TICK_INNER_RATIO = 0.75f;
+    private static final float HAND_LENGTH_RATIO_REDUCED = 0.7f;
+    private static final float HAND_LENGTH_RATIO_MINIMAL = 0.85f;
+
+    private static final int HOURS_INNER = RadialStyle.HOURS_INNER;
+
+    private static final int TEXT_COLOR_ACTIVATED = RadialStyle.TEXT_COLOR_ACTIVATED;
+    private static final int TEXT_COLOR_DISABLED = RadialStyle.TEXT_COLOR_DISABLED;
 
     private static final int SELECTOR_CIRCLE = 0;
     private static final int SELECTOR_DOT = 1;
     private static final int SELECTOR_LINE = 2;
 
-    private static final int AM = 0;
-    private static final int PM = 1;
+    private static final int AM = ClockFaceGeometry.AM;
+    private static final int PM = ClockFaceGeometry.PM;
     private static final String TESTCOLOR = "#F5F5F5";
 
-    private static final int HOURS_IN_CIRCLE = 12;
-    private static final int MINUTES_IN_CIRCLE = 60;
-    private static final int DEGREES_FOR_ONE_HOUR = 360 / HOURS_IN_CIRCLE;
-    private static final int DEGREES_FOR_ONE_MINUTE = 360 / MINUTES_IN_CIRCLE;
+    private static final int MINUTES_IN_CIRCLE = ClockFaceGeometry.MINUTES_IN_CIRCLE;
+    private static final int MINUTES_PER_DAY = TimeAvailability.MINUTES_PER_DAY;
+    private static final int DEGREES_FOR_ONE_HOUR = ClockFaceGeometry.DEGREES_FOR_ONE_HOUR;
+    private static final int DEGREES_FOR_ONE_MINUTE = ClockFaceGeometry.DEGREES_FOR_ONE_MINUTE;
 
     private static final int[] HOURS_NUMBERS = {12, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
     private static final int[] HOURS_NUMBERS_24 = {0, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23};
     private static final int[] MINUTES_NUMBERS = {0, 5, 10, 15, 20, 25, 30, 35, 40, 45, 50, 55};
 
-    private static final int ANIM_DURATION_NORMAL = 500;
-    private static final int ANIM_DURATION_TOUCH = 60;
+    /**
+     * Stiffness of the hours/minutes transition spring. Without bounce, the
+     * normal stiffness settles in about 500ms and the touch stiffness in
+     * about 60ms.
+     */
+    private static final float TRANSITION_STIFFNESS_NORMAL = SpringForce.STIFFNESS_LOW;
+    private static final float TRANSITION_STIFFNESS_TOUCH = 16000f;
 
-    private static final int[] SNAP_PREFER_30S_MAP = new int[361];
+    /** How far ahead touch prediction extrapolates the latest sample. */
+    private static final int TOUCH_PREDICTION_MS = 8;
 
-    private static final int NUM_POSITIONS = 12;
-    private static final float[] COS_30 = new float[NUM_POSITIONS];
-    private static final float[] SIN_30 = new float[NUM_POSITIONS];
+    private static final int TOUCH_SAMPLE_OUTSIDE = -1;
+    private static final int TOUCH_SAMPLE_UNCHANGED = 0;
+    private static final int TOUCH_SAMPLE_CHANGED = 1;
 
-    /** "Something is wrong" color used when a color attribute is missing. */
-    private static final int MISSING_COLOR = Color.MAGENTA;
+    /** Size of a hit-test grid cell. */
+    private static final float HIT_TEST_CELL_SIZE_DP = 4;
 
-    static {
-        // Prepare mapping to snap touchable degrees to selectable degrees.
-        preparePrefer30sMap();
-
-        final double increment = 2.0 * Math.PI / NUM_POSITIONS;
-        double angle = Math.PI / 2.0;
-        for (int i = 0; i < NUM_POSITIONS; i++) {
-            COS_30[i] = (float) Math.cos(angle);
-            SIN_30[i] = (float) Math.sin(angle);
-            angle += increment;
-        }
-    }
+    private static final int NUM_POSITIONS = ClockFaceGeometry.NUM_POSITIONS;
 
     private final FloatPropertyCompat<RadialTimePickerView> HOURS_TO_MINUTES =
             new FloatPropertyCompat<RadialTimePickerView>("hoursToMinutes") {
@@ -130,38 +181,24 @@ public class RadialTimePickerView extends View {
                 @Override
                 public void setValue(RadialTimePickerView object, float value) {
                     object.mHoursToMinutes = value;
+                    object.mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_ANIMATION;
                     object.invalidate();
                 }
             };
 
-    private final Property<RadialTimePickerView, Float> HOURS_TO_MINUTES_OLD = new Property<RadialTimePickerView, Float>(Float.class, "hoursToMinutes") {
-        @Override
-        public Float get(RadialTimePickerView radialTimePickerView) {
-            return HOURS_TO_MINUTES.getValue(radialTimePickerView);
-            //return radialTimePickerView.mHoursToMinutes;
-        }
-
-        @Override
-        public void set(RadialTimePickerView object, Float value) {
-            HOURS_TO_MINUTES.setValue(object, value);
-            //object.mHoursToMinutes = value;
-            //object.invalidate();
-        }
-    };
-
     private final String[] mHours12Texts = new String[12];
     private final String[] mOuterHours24Texts = new String[12];
     private final String[] mInnerHours24Texts = new String[12];
     private final String[] mMinutesTexts = new String[12];
 
-    private final Paint[] mPaint = new Paint[2];
+    private final Paint[] mPaint = new Paint[3];
     private final Paint mPaintCenter = new Paint();
     private final Paint[] mPaintSelector = new Paint[3];
     private final Paint mPaintBackground = new Paint();
+    private final Paint mPaintSelectorMask = new Paint();
 
-    private final Typeface mTypeface;
-
-    private final ColorStateList[] mTextColor = new ColorStateList[3];
+    /** Shared resolved style providing colors, dimensions and paints. */
+    private RadialStyle mStyle;
     private final int[] mTextSize = new int[3];
     private final int[] mTextInset = new int[3];
 
@@ -177,10 +214,80 @@ public class RadialTimePickerView extends View {
 
     private final Path mSelectorPath = new Path();
 
+    private float mSelectorCenterX;
+    private float mSelectorCenterY;
+    private float mSelectorDotScale;
+    private float mSelectorLineEndX;
+    private float mSelectorLineEndY;
+
+    /**
+     * Hand angle and length the selector geometry was last computed for, or
+     * NaN when it must be computed again.
+     */
+    private float mSelectorGeometryAngle = Float.NaN;
+    private float mSelectorGeometryLength;
+
+    /** Selector bounds as of the last draw, used for partial invalidation. */
+    private final Rect mDrawnSelectorBounds = new Rect();
+
+    /** Whether the last draw went to a hardware-accelerated canvas. */
+    private boolean mDrawnToHardwareCanvas;
+    private final Rect mDirtyRect = new Rect();
+
+    private @ActivatedNumeralsMode int mActivatedNumeralsMode = ACTIVATED_NUMERALS_MASK;
+
+    /**
+     * Mode used by the current frame. Falls back to clipping while the
+     * selector is translucent.
+     */
+    private @ActivatedNumeralsMode int mDrawnActivatedNumeralsMode = ACTIVATED_NUMERALS_MASK;
+
+    /** Level of detail for the current size, updated on layout. */
+    private @LevelOfDetail int mLevelOfDetail = LEVEL_OF_DETAIL_FULL;
+    private float mReducedDetailBelowDp = DEFAULT_REDUCED_DETAIL_BELOW_DP;
+    private float mMinimalDetailBelowDp = DEFAULT_MINIMAL_DETAIL_BELOW_DP;
+
+    /**
+     * Per-minute load shown behind the numerals, either per minute of the
+     * hour or per minute of the day, or {@code null} if none is shown.
+     */
+    private float[] mOccupancy;
+    private int mOccupancyColor;
+    private boolean mOccupancyColorSet;
+
+    /** Occupancy rings indexed by {@link #HOURS}, {@link #MINUTES} and {@link #HOURS_INNER}. */
+    private final HeatRing[] mHeatRings = {new HeatRing(), new HeatRing(), new HeatRing()};
+
+    /** Line segments of the tick marks drawn at reduced detail. */
+    private final float[] mTickPoints = new float[NUM_POSITIONS * 4];
+    private final Paint mPaintTick = new Paint();
+
+    /**
+     * Cached dial layers holding the heat rings and the inactive numerals for
+     * each picker type, indexed by {@link #HOURS} and {@link #MINUTES}. The
+     * hours layer includes the inner 24-hour ring.
+     */
+    private final Bitmap[] mDialLayers = new Bitmap[2];
+    private final Canvas mDialLayerCanvas = new Canvas();
+    private final Paint mPaintDialLayer = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /** Whether the dial layers need to be rendered again before use. */
+    private boolean mDialLayersDirty = true;
+
+    /**
+     * Region of otherwise valid dial layers to render again, e.g. around
+     * numerals whose disabled state changed.
+     */
+    private final Rect mDialLayersDirtyBounds = new Rect();
+
+    /** Set when the dial layers could not be allocated; draw directly instead. */
+    private boolean mDialLayersUnavailable;
+
     private boolean mIs24HourMode;
     private boolean mShowHours;
 
-    private ObjectAnimator mHoursToMinutesAnimator;
+    /** Drives {@link #mHoursToMinutes}; retargeted rather than recreated. */
+    private final SpringAnimation mHoursToMinutesSpring;
     private float mHoursToMinutes;
 
     /**
@@ -205,6 +312,21 @@ public class RadialTimePickerView extends View {
     private int mMaxDistForOuterNumber;
     private int mHalfwayDist;
 
+    /** Lookup grid for touch angles, rebuilt on layout. */
+    private final PolarHitTestGrid mHitTestGrid = new PolarHitTestGrid();
+
+    /** Snaps touched angles to selectable minutes. */
+    private SnapTable mMinuteSnap = SnapTable.forMinuteStep(1);
+
+    /** Selectable times, or {@code null} if every time can be selected. */
+    private TimeAvailability mAvailability;
+
+    /**
+     * Numerals that can't be selected, indexed by ring, with one bit per
+     * numeral position.
+     */
+    private final int[] mDisabledNumerals = new int[3];
+
     private String[] mOuterTextHours;
     private String[] mInnerTextHours;
     private String[] mMinutesText;
@@ -217,6 +339,22 @@ public class RadialTimePickerView extends View {
 
     private boolean mInputEnabled = true;
 
+    private boolean mTouchPredictionEnabled;
+
+    /** Position and time of the previous touch sample, used for prediction. */
+    private float mLastTouchX;
+    private float mLastTouchY;
+    private long mLastTouchTime = -1;
+
+    private RenderMetricsListener mRenderMetricsListener;
+
+    /** Text and clip operations issued during the current frame. */
+    private int mTextOpCount;
+    private int mClipOpCount;
+
+    private @RenderMetricsListener.InvalidationCause int mInvalidationCause =
+            RenderMetricsListener.INVALIDATION_CAUSE_API;
+
     interface OnValueSelectedListener {
         /**
          * Called when the selected value at a given picker index has changed.
@@ -237,103 +375,6 @@ public class RadialTimePickerView extends View {
         void onValueSelected(@PickerType int pickerType, int newValue, boolean autoAdvance);
     }
 
-    /**
-     * Split up the 360 degrees of the circle among the 60 selectable values. Assigns a larger
-     * selectable area to each of the 12 visible values, such that the ratio of space apportioned
-     * to a visible value : space apportioned to a non-visible value will be 14 : 4.
-     * E.g. the output of 30 degrees should have a higher range of input associated with it than
-     * the output of 24 degrees, because 30 degrees corresponds to a visible number on the clock
-     * circle (5 on the minutes, 1 or 13 on the hours).
-     */
-    private static void preparePrefer30sMap() {
-        // We'll split up the visible output and the non-visible output such that each visible
-        // output will correspond to a range of 14 associated input degrees, and each non-visible
-        // output will correspond to a range of 4 associate input degrees, so visible numbers
-        // are more than 3 times easier to get than non-visible numbers:
-        // {354-359,0-7}:0, {8-11}:6, {12-15}:12, {16-19}:18, {20-23}:24, {24-37}:30, etc.
-        //
-        // If an output of 30 degrees should correspond to a range of 14 associated degrees, then
-        // we'll need any input between 24 - 37 to snap to 30. Working out from there, 20-23 should
-        // snap to 24, while 38-41 should snap to 36. This is somewhat counter-intuitive, that you
-        // can be touching 36 degrees but have the selection snapped to 30 degrees; however, this
-        // inconsistency isn't noticeable at such fine-grained degrees, and it affords us the
-        // ability to aggressively prefer the visible values by a factor of more than 3:1, which
-        // greatly contributes to the selectability of these values.
-
-        // The first output is 0, and each following output will increment by 6 {0, 6, 12, ...}.
-        int snappedOutputDegrees = 0;
-        // Count of how many inputs we've designated to the specified output.
-        int count = 1;
-        // How many input we expect for a specified output. This will be 14 for output divisible
-        // by 30, and 4 for the remaining output. We'll special case the outputs of 0 and 360, so
-        // the caller can decide which they need.
-        int expectedCount = 8;
-        // Iterate through the input.
-        for (int degrees = 0; degrees < 361; degrees++) {
-            // Save the input-output mapping.
-            SNAP_PREFER_30S_MAP[degrees] = snappedOutputDegrees;
-            // If this is the last input for the specified output, calculate the next output and
-            // the next expected count.
-            if (count == expectedCount) {
-                snappedOutputDegrees += 6;
-                if (snappedOutputDegrees == 360) {
-                    expectedCount = 7;
-                } else if (snappedOutputDegrees % 30 == 0) {
-                    expectedCount = 14;
-                } else {
-                    expectedCount = 4;
-                }
-                count = 1;
-            } else {
-                count++;
-            }
-        }
-    }
-
-    /**
-     * Returns mapping of any input degrees (0 to 360) to one of 60 selectable output degrees,
-     * where the degrees corresponding to visible numbers (i.e. those divisible by 30) will be
-     * weighted heavier than the degrees corresponding to non-visible numbers.
-     * See {@link #preparePrefer30sMap()} documentation for the rationale and generation of the
-     * mapping.
-     */
-    private static int snapPrefer30s(int degrees) {
-        if (SNAP_PREFER_30S_MAP == null) {
-            return -1;
-        }
-        return SNAP_PREFER_30S_MAP[degrees];
-    }
-
-    /**
-     * Returns mapping of any input degrees (0 to 360) to one of 12 visible output degrees (all
-     * multiples of 30), where the input will be "snapped" to the closest visible degrees.
-     * @param degrees The input degrees
-     * @param forceHigherOrLower The output may be forced to either the higher or lower step, or may
-     * be allowed to snap to whichever is closer. Use 1 to force strictly higher, -1 to force
-     * strictly lower, and 0 to snap to the closer one.
-     * @return output degrees, will be a multiple of 30
-     */
-    private static int snapOnly30s(int degrees, int forceHigherOrLower) {
-        final int stepSize = DEGREES_FOR_ONE_HOUR;
-        int floor = (degrees / stepSize) * stepSize;
-        final int ceiling = floor + stepSize;
-        if (forceHigherOrLower == 1) {
-            degrees = ceiling;
-        } else if (forceHigherOrLower == -1) {
-            if (degrees == floor) {
-                floor -= stepSize;
-            }
-            degrees = floor;
-        } else {
-            if ((degrees - floor) < (ceiling - degrees)) {
-                degrees = floor;
-            } else {
-                degrees = ceiling;
-            }
-        }
-        return degrees;
-    }
-
     @SuppressWarnings("unused")
     public RadialTimePickerView(Context context)  {
         this(context, null);
@@ -351,25 +392,6 @@ public class RadialTimePickerView extends View {
             Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes)  {
         super(context, attrs);
 
-        applyAttributes(attrs, defStyleAttr, defStyleRes);
-
-        // Pull disabled alpha from theme.
-        final TypedValue outValue = new TypedValue();
-        context.getTheme().resolveAttribute(android.R.attr.disabledAlpha, outValue, true);
-        mDisabledAlpha = outValue.getFloat();
-
-        mTypeface = Typeface.create("sans-serif", Typeface.NORMAL);
-
-        mPaint[HOURS] = new Paint();
-        mPaint[HOURS].setAntiAlias(true);
-        mPaint[HOURS].setTextAlign(Paint.Align.CENTER);
-        mPaint[HOURS].setFakeBoldText(true);
-
-        mPaint[MINUTES] = new Paint();
-        mPaint[MINUTES].setAntiAlias(true);
-        mPaint[MINUTES].setTextAlign(Paint.Align.CENTER);
-        mPaint[MINUTES].setFakeBoldText(true);
-
         mPaintCenter.setAntiAlias(true);
 
         mPaintSelector[SELECTOR_CIRCLE] = new Paint();
@@ -384,22 +406,28 @@ public class RadialTimePickerView extends View {
 
         mPaintBackground.setAntiAlias(true);
 
-        final Resources res = getResources();
-        mSelectorRadius = res.getDimensionPixelSize(R.dimen.timepicker_selector_radius);
-        mSelectorStroke = res.getDimensionPixelSize(R.dimen.timepicker_selector_stroke);
-        mSelectorDotRadius = res.getDimensionPixelSize(R.dimen.timepicker_selector_dot_radius);
-        mCenterDotRadius = res.getDimensionPixelSize(R.dimen.timepicker_center_dot_radius);
+        mPaintTick.setAntiAlias(true);
+
+        mPaintSelectorMask.setAntiAlias(true);
+        mPaintSelectorMask.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
 
-        mTextSize[HOURS] = res.getDimensionPixelSize(R.dimen.timepicker_text_size_normal);
-        mTextSize[MINUTES] = res.getDimensionPixelSize(R.dimen.timepicker_text_size_normal);
-        mTextSize[HOURS_INNER] = res.getDimensionPixelSize(R.dimen.timepicker_text_size_inner);
+        // Each ring has its own paint so that text size and typeface are only
+        // set when the style changes.
+        for (int i = 0; i < mPaint.length; i++) {
+            mPaint[i] = new Paint();
+        }
 
-        mTextInset[HOURS] = res.getDimensionPixelSize(R.dimen.timepicker_text_inset_normal);
-        mTextInset[MINUTES] = res.getDimensionPixelSize(R.dimen.timepicker_text_inset_normal);
-        mTextInset[HOURS_INNER] = res.getDimensionPixelSize(R.dimen.timepicker_text_inset_inner);
+        applyStyle(RadialStyle.obtain(context, attrs, defStyleAttr, defStyleRes));
 
         mShowHours = true;
         mHoursToMinutes = HOURS;
+        mHoursToMinutesSpring = new SpringAnimation(this, HOURS_TO_MINUTES, HOURS);
+        mHoursToMinutesSpring.getSpring().setDampingRatio(SpringForce.DAMPING_RATIO_NO_BOUNCY);
+        mHoursToMinutesSpring.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_ALPHA);
+        // A spring retargeted mid-flight can overshoot even without bounce.
+        // Values outside [0,1] would extrapolate the alphas and the angle.
+        mHoursToMinutesSpring.setMinValue(HOURS);
+        mHoursToMinutesSpring.setMaxValue(MINUTES);
         mIs24HourMode = false;
         mAmOrPm = AM;
 
@@ -430,48 +458,63 @@ public class RadialTimePickerView extends View {
     }
 
     void applyAttributes(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
-        final Context context = getContext();
-        final TypedArray a = getContext().obtainStyledAttributes(attrs,
-                R.styleable.TimePicker, defStyleAttr, defStyleRes);
-
-        final ColorStateList numbersTextColor = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersTextColor); //a.getColorStateList(R.styleable.TimePicker_numbersTextColor);
-        final ColorStateList numbersInnerTextColor = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersInnerTextColor); //a.getColorStateList(R.styleable.TimePicker_numbersInnerTextColor);
-        mTextColor[HOURS] = numbersTextColor == null ?
-                ColorStateList.valueOf(MISSING_COLOR) : numbersTextColor;
-        mTextColor[HOURS_INNER] = numbersInnerTextColor == null ?
-                ColorStateList.valueOf(MISSING_COLOR) : numbersInnerTextColor;
-        mTextColor[MINUTES] = mTextColor[HOURS];
-
-        // Set up various colors derived from the selector "activated" state.
-        final ColorStateList selectorColors = Utils.getColorStateList(context, a, R.styleable.TimePicker_numbersSelectorColor); //a.getColorStateList(R.styleable.TimePicker_numbersSelectorColor);
-        final int selectorActivatedColor;
-        if (selectorColors != null) {
-            final int[] stateSetEnabledActivated = StateSet.get(StateSet.VIEW_STATE_ENABLED | StateSet.VIEW_STATE_ACTIVATED);
-            selectorActivatedColor = selectorColors.getColorForState(stateSetEnabledActivated, 0);
-        }  else {
-            selectorActivatedColor = MISSING_COLOR;
+        final RadialStyle style = RadialStyle.obtain(getContext(), attrs, defStyleAttr, defStyleRes);
+        if (style != mStyle) {
+            applyStyle(style);
         }
+    }
 
+    private void applyStyle(RadialStyle style) {
+        mStyle = style;
 
-        mPaintCenter.setColor(selectorActivatedColor);
+        mDisabledAlpha = style.mDisabledAlpha;
 
-        final int[] stateSetActivated = StateSet.get(
-                StateSet.VIEW_STATE_ENABLED | StateSet.VIEW_STATE_ACTIVATED);
+        mSelectorRadius = style.mSelectorRadius;
+        mSelectorStroke = style.mSelectorStroke;
+        mSelectorDotRadius = style.mSelectorDotRadius;
+        mCenterDotRadius = style.mCenterDotRadius;
 
-        mSelectorColor = selectorActivatedColor;
-        mSelectorDotColor = mTextColor[HOURS].getColorForState(stateSetActivated, 0);
+        for (int i = 0; i < mTextSize.length; i++) {
+            mTextSize[i] = style.getTextSize(i);
+            mTextInset[i] = style.getTextInset(i);
+        }
+
+        for (int i = 0; i < mPaint.length; i++) {
+            style.copyTextPaint(i, mPaint[i]);
+        }
 
-        //Timepicker background
-            mPaintBackground.setColor(a.getColor(R.styleable.TimePicker_numbersBackgroundColor,
-                    ContextCompat.getColor(context, R.color.timepicker_default_numbers_background_color_material)));
+        mSelectorColor = style.mSelectorColor;
+        if (!mOccupancyColorSet) {
+            mOccupancyColor = style.mSelectorColor;
+            if (mOccupancy != null) {
+                fillHeatRings();
+            }
+        }
+        mSelectorDotColor = style.mSelectorDotColor;
+        mPaintCenter.setColor(style.mSelectorColor);
+        mPaintBackground.setColor(style.mBackgroundColor);
 
-        a.recycle();
+        // Dimensions may have changed after the last layout.
+        if (getWidth() > 0) {
+            updateLayoutGeometry();
+        }
+        invalidateDialLayers();
+        invalidate();
     }
 
     public void initialize(int hour, int minute, boolean is24HourMode) {
         if (mIs24HourMode != is24HourMode) {
             mIs24HourMode = is24HourMode;
             initData();
+
+            // The inner circle positions are only computed in 24-hour mode.
+            if (mCircleRadius > 0) {
+                calculatePositionsHours();
+            }
+            invalidateDialLayers();
+
+            // The hour nodes differ between the modes.
+            mTouchHelper.invalidateRoot();
         }
 
         setCurrentHourInternal(hour, false, false);
@@ -499,6 +542,216 @@ public class RadialTimePickerView extends View {
         mListener = listener;
     }
 
+    /**
+     * Sets a listener to receive per-frame rendering metrics, or {@code null}
+     * to stop collecting them.
+     */
+    public void setRenderMetricsListener(RenderMetricsListener listener) {
+        mRenderMetricsListener = listener;
+    }
+
+    /**
+     * Sets how the numerals under the selector are drawn. The mask mode is
+     * only used while the selector color is opaque.
+     *
+     * @param mode one of {@link #ACTIVATED_NUMERALS_CLIP} or
+     *             {@link #ACTIVATED_NUMERALS_MASK}
+     */
+    public void setActivatedNumeralsMode(@ActivatedNumeralsMode int mode) {
+        if (mActivatedNumeralsMode != mode) {
+            mActivatedNumeralsMode = mode;
+            invalidate();
+        }
+    }
+
+    public @ActivatedNumeralsMode int getActivatedNumeralsMode() {
+        return mActivatedNumeralsMode;
+    }
+
+    /**
+     * Sets the load shown as a heat ring behind the numerals, or
+     * {@code null} to hide it.
+     * <p>
+     * A histogram of 60 buckets holds the load per minute of the hour and
+     * is shown on the minutes dial. A histogram of 1440 buckets holds the
+     * load per minute of the day: the hours dial shows the half of the day
+     * its numerals stand for, and the minutes dial shows the current hour.
+     *
+     * @param levels load per bucket in the range [0,1], copied
+     * @throws IllegalArgumentException if the histogram doesn't have 60 or
+     *                                  1440 buckets
+     */
+    public void setOccupancy(float[] levels) {
+        if (levels == null) {
+            if (mOccupancy != null) {
+                mOccupancy = null;
+                for (HeatRing ring : mHeatRings) {
+                    ring.setWindow(0, 0);
+                }
+                invalidateDialLayers();
+                invalidate();
+            }
+            return;
+        }
+
+        checkOccupancyLength(levels.length);
+        if (mOccupancy == null || mOccupancy.length != levels.length) {
+            mOccupancy = levels.clone();
+        } else {
+            System.arraycopy(levels, 0, mOccupancy, 0, levels.length);
+        }
+
+        updateHeatRingWindows();
+        fillHeatRings();
+        invalidateDialLayers();
+        invalidate();
+    }
+
+    /**
+     * Updates a range of the load set by {@link #setOccupancy(float[])}. Only
+     * the part of the dial showing the changed buckets is drawn again.
+     *
+     * @param from the first bucket to update
+     * @param levels load per bucket in the range [0,1], starting at
+     *               {@code from}
+     * @throws IllegalStateException if no load is shown
+     * @throws IndexOutOfBoundsException if the range is outside the histogram
+     */
+    public void updateOccupancy(int from, float[] levels) {
+        final float[] occupancy = mOccupancy;
+        if (occupancy == null) {
+            throw new IllegalStateException("No occupancy set");
+        }
+        if (from < 0 || from + levels.length > occupancy.length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", "
+                    + (from + levels.length) + ") outside of " + occupancy.length + " buckets");
+        }
+
+        System.arraycopy(levels, 0, occupancy, from, levels.length);
+        final int to = from + levels.length;
+        boolean changed = false;
+        for (HeatRing ring : mHeatRings) {
+            changed |= ring.update(occupancy, mOccupancyColor, from, to, mDialLayersDirtyBounds);
+        }
+        if (changed) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Sets the color of fully loaded buckets. Defaults to the selector color.
+     */
+    public void setOccupancyColor(int color) {
+        mOccupancyColorSet = true;
+        if (mOccupancyColor != color) {
+            mOccupancyColor = color;
+            if (mOccupancy != null) {
+                fillHeatRings();
+                invalidateDialLayers();
+                invalidate();
+            }
+        }
+    }
+
+    private static void checkOccupancyLength(int length) {
+        if (length != MINUTES_IN_CIRCLE && length != MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Occupancy must have " + MINUTES_IN_CIRCLE
+                    + " or " + MINUTES_PER_DAY + " buckets, not " + length);
+        }
+    }
+
+    /**
+     * Chooses the histogram buckets each heat ring shows for the current
+     * mode and selection.
+     *
+     * @return {@code true} if any ring shows different buckets, in which
+     *         case the rings must be filled again
+     */
+    private boolean updateHeatRingWindows() {
+        final int halfDay = MINUTES_PER_DAY / 2;
+        int hoursStart = 0;
+        int hoursCount = 0;
+        int innerStart = 0;
+        int innerCount = 0;
+        int minutesStart = 0;
+        if (mOccupancy.length == MINUTES_PER_DAY) {
+            // Each hours ring spans half a day from 12 o'clock; the outer
+            // ring in 24-hour mode shows 1 to 12 and the inner one 13 to 0.
+            hoursCount = halfDay;
+            if (mIs24HourMode) {
+                innerStart = halfDay;
+                innerCount = halfDay;
+            } else {
+                hoursStart = mAmOrPm * halfDay;
+            }
+            minutesStart = getCurrentHour() * MINUTES_IN_CIRCLE;
+        }
+
+        boolean changed = mHeatRings[HOURS].setWindow(hoursStart, hoursCount);
+        changed |= mHeatRings[HOURS_INNER].setWindow(innerStart, innerCount);
+        changed |= mHeatRings[MINUTES].setWindow(minutesStart, MINUTES_IN_CIRCLE);
+        return changed;
+    }
+
+    /**
+     * Refills the heat rings if the selection moved to another hour or half
+     * of the day.
+     *
+     * @return {@code true} if the rings changed and must be drawn again
+     */
+    private boolean updateHeatRings() {
+        if (mOccupancy == null || !updateHeatRingWindows()) {
+            return false;
+        }
+        fillHeatRings();
+        invalidateDialLayers();
+        return true;
+    }
+
+    private void fillHeatRings() {
+        for (HeatRing ring : mHeatRings) {
+            ring.fill(mOccupancy, mOccupancyColor);
+        }
+    }
+
+    /**
+     * Sets the dial diameters below which less detail is drawn. Small dials
+     * draw tick marks instead of numerals, and the smallest draw only the
+     * hand. A threshold of 0 disables the corresponding level.
+     *
+     * @param reducedBelowDp diameter in dp below which
+     *                       {@link #LEVEL_OF_DETAIL_REDUCED} is used
+     * @param minimalBelowDp diameter in dp below which
+     *                       {@link #LEVEL_OF_DETAIL_MINIMAL} is used, at most
+     *                       {@code reducedBelowDp}
+     * @throws IllegalArgumentException if a threshold is negative or the
+     *                                  minimal threshold is larger than the
+     *                                  reduced one
+     */
+    public void setLevelOfDetailThresholds(float reducedBelowDp, float minimalBelowDp) {
+        if (minimalBelowDp < 0 || reducedBelowDp < minimalBelowDp) {
+            throw new IllegalArgumentException("Invalid level of detail thresholds: "
+                    + reducedBelowDp + ", " + minimalBelowDp);
+        }
+
+        mReducedDetailBelowDp = reducedBelowDp;
+        mMinimalDetailBelowDp = minimalBelowDp;
+        if (isLaidOut()) {
+            updateLevelOfDetail();
+        }
+    }
+
+    /**
+     * Returns the level of detail chosen for the current size.
+     *
+     * @return one of {@link #LEVEL_OF_DETAIL_FULL},
+     *         {@link #LEVEL_OF_DETAIL_REDUCED} or
+     *         {@link #LEVEL_OF_DETAIL_MINIMAL}
+     */
+    public @LevelOfDetail int getLevelOfDetail() {
+        return mLevelOfDetail;
+    }
+
     /**
      * Sets the current hour in 24-hour time.
      *
@@ -517,21 +770,31 @@ public class RadialTimePickerView extends View {
      *                    selection mode, e.g. hour to minutes
      */
     private void setCurrentHourInternal(int hour, boolean callback, boolean autoAdvance) {
+        final int previousHour = getCurrentHour();
         final int degrees = (hour % 12) * DEGREES_FOR_ONE_HOUR;
+        final boolean degreesChanged = mSelectionDegrees[HOURS] != degrees;
         mSelectionDegrees[HOURS] = degrees;
 
         // 0 is 12 AM (midnight) and 12 is 12 PM (noon).
         final int amOrPm = (hour == 0 || (hour % 24) < 12) ? AM : PM;
         final boolean isOnInnerCircle = getInnerCircleForHour(hour);
-        if (mAmOrPm != amOrPm || mIsOnInnerCircle != isOnInnerCircle) {
+        final boolean circleChanged = mIsOnInnerCircle != isOnInnerCircle;
+        if (mAmOrPm != amOrPm || circleChanged) {
             mAmOrPm = amOrPm;
             mIsOnInnerCircle = isOnInnerCircle;
 
             initData();
-            mTouchHelper.invalidateRoot();
         }
 
-        invalidate();
+        // The AM/PM state and the hour are only drawn through the hand and
+        // the heat rings, so only repaint if either of them changed.
+        if (updateHeatRings()) {
+            invalidate();
+        } else if (degreesChanged || circleChanged) {
+            invalidateSelector();
+        }
+        updateDisabledNumerals();
+        mTouchHelper.invalidateHourSelection(previousHour, hour);
 
         if (callback && mListener != null) {
             mListener.onValueSelected(HOURS, hour, autoAdvance);
@@ -548,43 +811,21 @@ public class RadialTimePickerView extends View {
     }
 
     private int getHourForDegrees(int degrees, boolean innerCircle) {
-        int hour = (degrees / DEGREES_FOR_ONE_HOUR) % 12;
-        if (mIs24HourMode) {
-            // Convert the 12-hour value into 24-hour time based on where the
-            // selector is positioned.
-            if (!innerCircle && hour == 0) {
-                // Outer circle is 1 through 12.
-                hour = 12;
-            } else if (innerCircle && hour != 0) {
-                // Inner circle is 13 through 23 and 0.
-                hour += 12;
-            }
-        } else if (mAmOrPm == PM) {
-            hour += 12;
-        }
-        return hour;
+        return ClockFaceGeometry.getHourForDegrees(degrees, innerCircle, mIs24HourMode, mAmOrPm);
     }
 
     /**
      * @param hour the hour in 24-hour time or 12-hour time
      */
     private int getDegreesForHour(int hour) {
-        // Convert to be 0-11.
-        if (mIs24HourMode) {
-            if (hour >= 12) {
-                hour -= 12;
-            }
-        } else if (hour == 12) {
-            hour = 0;
-        }
-        return hour * DEGREES_FOR_ONE_HOUR;
+        return ClockFaceGeometry.getDegreesForHour(hour, mIs24HourMode);
     }
 
     /**
      * @param hour the hour in 24-hour time or 12-hour time
      */
     private boolean getInnerCircleForHour(int hour) {
-        return mIs24HourMode && (hour == 0 || hour > 12);
+        return ClockFaceGeometry.getInnerCircleForHour(hour, mIs24HourMode);
     }
 
     public void setCurrentMinute(int minute) {
@@ -592,9 +833,13 @@ public class RadialTimePickerView extends View {
     }
 
     private void setCurrentMinuteInternal(int minute, boolean callback) {
-        mSelectionDegrees[MINUTES] = (minute % MINUTES_IN_CIRCLE) * DEGREES_FOR_ONE_MINUTE;
-
-        invalidate();
+        final int degrees = (minute % MINUTES_IN_CIRCLE) * DEGREES_FOR_ONE_MINUTE;
+        if (mSelectionDegrees[MINUTES] != degrees) {
+            final int previousMinute = getCurrentMinute();
+            mSelectionDegrees[MINUTES] = degrees;
+            invalidateSelector();
+            mTouchHelper.invalidateMinuteSelection(previousMinute, getCurrentMinute());
+        }
 
         if (callback && mListener != null) {
             mListener.onValueSelected(MINUTES, minute, false);
@@ -607,11 +852,11 @@ public class RadialTimePickerView extends View {
     }
 
     private int getMinuteForDegrees(int degrees) {
-        return degrees / DEGREES_FOR_ONE_MINUTE;
+        return ClockFaceGeometry.getMinuteForDegrees(degrees);
     }
 
     private int getDegreesForMinute(int minute) {
-        return minute * DEGREES_FOR_ONE_MINUTE;
+        return ClockFaceGeometry.getDegreesForMinute(minute);
     }
 
     /**
@@ -628,8 +873,9 @@ public class RadialTimePickerView extends View {
         }
 
         mAmOrPm = amOrPm;
+        updateHeatRings();
         invalidate();
-        mTouchHelper.invalidateRoot();
+        updateDisabledNumerals();
         return true;
     }
 
@@ -647,11 +893,12 @@ public class RadialTimePickerView extends View {
 
     private void initHoursAndMinutesText() {
         // Initialize the hours and minutes numbers.
+        final DigitFormatter formatter = DigitFormatter.getInstance();
         for (int i = 0; i < 12; i++) {
-            mHours12Texts[i] = String.format("%d", HOURS_NUMBERS[i]);
-            mInnerHours24Texts[i] = String.format("%02d", HOURS_NUMBERS_24[i]);
-            mOuterHours24Texts[i] = String.format("%d", HOURS_NUMBERS[i]);
-            mMinutesTexts[i] = String.format("%02d", MINUTES_NUMBERS[i]);
+            mHours12Texts[i] = formatter.format(HOURS_NUMBERS[i]);
+            mInnerHours24Texts[i] = formatter.formatTwoDigits(HOURS_NUMBERS_24[i]);
+            mOuterHours24Texts[i] = formatter.format(HOURS_NUMBERS[i]);
+            mMinutesTexts[i] = formatter.formatTwoDigits(MINUTES_NUMBERS[i]);
         }
     }
 
@@ -673,9 +920,18 @@ public class RadialTimePickerView extends View {
             return;
         }
 
+        updateLayoutGeometry();
+    }
+
+    /**
+     * Computes the dial center, radii, numeral positions and hit-test grid
+     * for the current size and style.
+     */
+    private void updateLayoutGeometry() {
         mXCenter = getWidth() / 2;
         mYCenter = getHeight() / 2;
         mCircleRadius = Math.min(mXCenter, mYCenter);
+        mSelectorGeometryAngle = Float.NaN;
 
         mMinDistForInnerNumber = mCircleRadius - mTextInset[HOURS_INNER] - mSelectorRadius;
         mMaxDistForOuterNumber = mCircleRadius - mTextInset[HOURS] + mSelectorRadius;
@@ -683,23 +939,373 @@ public class RadialTimePickerView extends View {
 
         calculatePositionsHours();
         calculatePositionsMinutes();
+        invalidateDialLayers();
+        updateLevelOfDetail();
+
+        // Heat rings follow the numeral tracks, as wide as the selector.
+        final int trackWidth = 2 * mSelectorRadius;
+        mHeatRings[HOURS].setGeometry(mXCenter, mYCenter,
+                mCircleRadius - mTextInset[HOURS], trackWidth);
+        mHeatRings[HOURS_INNER].setGeometry(mXCenter, mYCenter,
+                mCircleRadius - mTextInset[HOURS_INNER], trackWidth);
+        mHeatRings[MINUTES].setGeometry(mXCenter, mYCenter,
+                mCircleRadius - mTextInset[MINUTES], trackWidth);
+
+        buildHitTestGrid();
 
         mTouchHelper.invalidateRoot();
     }
 
+    /**
+     * Chooses the level of detail for the current dial size and prepares the
+     * tick marks used below full detail.
+     */
+    private void updateLevelOfDetail() {
+        final float diameterDp = 2 * mCircleRadius / getResources().getDisplayMetrics().density;
+        final int levelOfDetail;
+        if (diameterDp < mMinimalDetailBelowDp) {
+            levelOfDetail = LEVEL_OF_DETAIL_MINIMAL;
+        } else if (diameterDp < mReducedDetailBelowDp) {
+            levelOfDetail = LEVEL_OF_DETAIL_REDUCED;
+        } else {
+            levelOfDetail = LEVEL_OF_DETAIL_FULL;
+        }
+
+        if (levelOfDetail != LEVEL_OF_DETAIL_FULL) {
+            calculateTickMarks();
+        }
+
+        if (mLevelOfDetail != levelOfDetail) {
+            mLevelOfDetail = levelOfDetail;
+            if (levelOfDetail != LEVEL_OF_DETAIL_FULL) {
+                // The dial layers aren't drawn until the view grows again.
+                releaseDialLayers();
+            }
+            invalidate();
+        }
+    }
+
+    private void calculateTickMarks() {
+        final float outer = mCircleRadius * TICK_OUTER_RATIO;
+        final float inner = mCircleRadius * TICK_INNER_RATIO;
+        final float[] points = mTickPoints;
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            final int degrees = i * DEGREES_FOR_ONE_HOUR;
+            final float sin = ClockFaceGeometry.sinDeg(degrees);
+            final float cos = ClockFaceGeometry.cosDeg(degrees);
+            points[i * 4] = mXCenter + inner * sin;
+            points[i * 4 + 1] = mYCenter - inner * cos;
+            points[i * 4 + 2] = mXCenter + outer * sin;
+            points[i * 4 + 3] = mYCenter - outer * cos;
+        }
+
+        mPaintTick.setStrokeWidth(Math.max(1, mSelectorStroke / 2f));
+    }
+
+    private void buildHitTestGrid() {
+        final int cellSize = Math.max(1, Math.round(
+                HIT_TEST_CELL_SIZE_DP * getResources().getDisplayMetrics().density));
+        mHitTestGrid.build(getWidth(), getHeight(), mXCenter, mYCenter, cellSize, mMinuteSnap);
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        // Numerals are formatted using the default locale.
+        initHoursAndMinutesText();
+        initData();
+        invalidateDialLayers();
+        invalidate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        endTransition();
+        releaseDialLayers();
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+
+        if (!isVisible) {
+            endTransition();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        // Covered by onVisibilityAggregated() on newer platforms.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && visibility != VISIBLE) {
+            endTransition();
+        }
+    }
+
+    /**
+     * Jumps a running hours/minutes transition to its end state, so that a
+     * picker that can't be seen doesn't keep producing frames.
+     */
+    private void endTransition() {
+        if (mHoursToMinutesSpring.isRunning()) {
+            mHoursToMinutesSpring.cancel();
+            mHoursToMinutes = mShowHours ? HOURS : MINUTES;
+            invalidate();
+        }
+    }
+
     @Override
     public void onDraw(Canvas canvas) {
+        final RenderMetricsListener metricsListener = mRenderMetricsListener;
+        final int cause = mInvalidationCause;
+        mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_API;
+        mDrawnToHardwareCanvas = canvas.isHardwareAccelerated();
+
+        if (metricsListener == null) {
+            drawDial(canvas);
+            return;
+        }
+
+        mTextOpCount = 0;
+        mClipOpCount = 0;
+        final long startTime = System.nanoTime();
+        drawDial(canvas);
+        final long drawTime = System.nanoTime() - startTime;
+        metricsListener.onFrameRendered(this, drawTime, mTextOpCount, mClipOpCount, cause);
+    }
+
+    private void drawDial(Canvas canvas) {
         final float alphaMod = mInputEnabled ? 1 : mDisabledAlpha;
+        final Path selectorPath = mSelectorPath;
+
+        updateHeatRings();
+
+        if (mLevelOfDetail != LEVEL_OF_DETAIL_FULL) {
+            drawDialWithoutNumerals(canvas, alphaMod);
+            return;
+        }
+
+        // Drawing the inactive numerals under the selector only hides them
+        // if the selector is opaque. Otherwise, clip them out instead.
+        final boolean opaqueSelector = Color.alpha(mSelectorColor) == 0xFF;
+        mDrawnActivatedNumeralsMode = opaqueSelector
+                ? mActivatedNumeralsMode : ACTIVATED_NUMERALS_CLIP;
+
+        if (opaqueSelector && ensureDialLayers()) {
+            // The inactive numerals come from the cached layers, drawn over
+            // the background. The selector is drawn on top of them, which
+            // hides the inactive numeral underneath, so only the activated
+            // numerals need to be drawn per frame.
+            drawDialLayers(canvas);
+            drawSelector(canvas, selectorPath);
+            drawActivatedNumerals(canvas, selectorPath);
+        } else if (mDrawnActivatedNumeralsMode == ACTIVATED_NUMERALS_MASK) {
+            // Same order as the cached path, without the layers.
+            drawCircleBackground(canvas);
+            drawInactiveNumerals(canvas);
+            drawSelector(canvas, selectorPath);
+            drawActivatedNumerals(canvas, selectorPath);
+        } else {
+            drawCircleBackground(canvas);
+            drawSelector(canvas, selectorPath);
+
+            // Exclude the selector region, then draw the numerals with no
+            // activated states.
+            canvas.save();
+            canvas.clipPath(selectorPath, Region.Op.DIFFERENCE);
+            mClipOpCount++;
+            drawInactiveNumerals(canvas);
+            canvas.restore();
+
+            drawActivatedNumerals(canvas, selectorPath);
+        }
+        drawCenter(canvas, alphaMod);
 
+        getSelectorBounds(mDrawnSelectorBounds);
+    }
+
+    /**
+     * Draws the dial below full detail: the background, the tick marks at
+     * reduced detail, the hand and the center dot. Nothing here draws text or
+     * clips, so small dials cost a handful of primitive draws per frame.
+     */
+    private void drawDialWithoutNumerals(Canvas canvas, float alphaMod) {
         drawCircleBackground(canvas);
 
-        final Path selectorPath = mSelectorPath;
-        drawSelector(canvas, selectorPath);
-        drawHours(canvas, selectorPath, alphaMod);
-        drawMinutes(canvas, selectorPath, alphaMod);
+        final boolean reduced = mLevelOfDetail == LEVEL_OF_DETAIL_REDUCED;
+        if (reduced) {
+            mPaintTick.setColor(mStyle.getTextColor(HOURS, mInputEnabled ? 0 : TEXT_COLOR_DISABLED));
+            canvas.drawLines(mTickPoints, mPaintTick);
+        }
+
+        updateSelectorGeometry();
+        final float angle = mSelectorGeometryAngle;
+        final float length = mCircleRadius
+                * (reduced ? HAND_LENGTH_RATIO_REDUCED : HAND_LENGTH_RATIO_MINIMAL);
+        final Paint linePaint = mPaintSelector[SELECTOR_LINE];
+        linePaint.setColor(mSelectorColor);
+        linePaint.setStrokeWidth(mSelectorStroke);
+        canvas.drawLine(mXCenter, mYCenter,
+                mXCenter + length * ClockFaceGeometry.sinDeg(angle),
+                mYCenter - length * ClockFaceGeometry.cosDeg(angle), linePaint);
+
         drawCenter(canvas, alphaMod);
     }
 
+    /**
+     * Marks the cached dial layers as stale. They are rendered again the next
+     * time the view is drawn.
+     */
+    private void invalidateDialLayers() {
+        mDialLayersDirty = true;
+    }
+
+    /**
+     * Marks the area of a single numeral of the cached dial layers as stale.
+     *
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
+     * @param position the numeral position, 0 being 12 o'clock
+     */
+    private void invalidateDialLayerNumeral(int ring, int position) {
+        if (mDialLayersDirty) {
+            return;
+        }
+
+        final float x;
+        final float y;
+        if (ring == HOURS_INNER) {
+            x = mInnerTextX[position];
+            y = mInnerTextY[position];
+        } else {
+            x = mOuterTextX[ring][position];
+            y = mOuterTextY[ring][position];
+        }
+        // Numerals are centered horizontally on x with their baseline at y;
+        // a text size on each side covers them with room for descenders.
+        final float size = mTextSize[ring];
+        mDialLayersDirtyBounds.union((int) (x - size), (int) (y - size),
+                (int) Math.ceil(x + size), (int) Math.ceil(y + size / 2));
+    }
+
+    private void releaseDialLayers() {
+        for (int i = 0; i < mDialLayers.length; i++) {
+            if (mDialLayers[i] != null) {
+                mDialLayers[i].recycle();
+                mDialLayers[i] = null;
+            }
+        }
+        mDialLayersDirty = true;
+        mDialLayersDirtyBounds.setEmpty();
+    }
+
+    /**
+     * Ensures the cached dial layers match the current size and state,
+     * rendering them again if necessary.
+     *
+     * @return {@code true} if the dial layers may be used for drawing, or
+     *         {@code false} if the dial must be drawn directly
+     */
+    private boolean ensureDialLayers() {
+        final int width = getWidth();
+        final int height = getHeight();
+        if (mDialLayersUnavailable || width <= 0 || height <= 0) {
+            return false;
+        }
+
+        if (!mDialLayersDirty) {
+            if (!mDialLayersDirtyBounds.isEmpty()) {
+                renderDialLayers(mDialLayersDirtyBounds);
+                mDialLayersDirtyBounds.setEmpty();
+            }
+            return true;
+        }
+
+        try {
+            for (int i = 0; i < mDialLayers.length; i++) {
+                final Bitmap layer = mDialLayers[i];
+                if (layer == null || layer.getWidth() != width || layer.getHeight() != height) {
+                    if (layer != null) {
+                        layer.recycle();
+                    }
+                    mDialLayers[i] = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                } else {
+                    layer.eraseColor(Color.TRANSPARENT);
+                }
+            }
+        } catch (OutOfMemoryError e) {
+            Log.w(TAG, "Unable to allocate dial layers, drawing directly", e);
+            releaseDialLayers();
+            mDialLayersUnavailable = true;
+            return false;
+        }
+
+        renderDialLayers(null);
+
+        mDialLayersDirty = false;
+        mDialLayersDirtyBounds.setEmpty();
+        return true;
+    }
+
+    /**
+     * Renders the heat rings and inactive numerals into the dial layers. The
+     * background is not part of the layers; it is drawn once underneath them.
+     *
+     * @param bounds the region to clear and render again, or {@code null} if
+     *               the layers were just erased
+     */
+    private void renderDialLayers(Rect bounds) {
+        final Canvas canvas = mDialLayerCanvas;
+        for (int i = 0; i < mDialLayers.length; i++) {
+            canvas.setBitmap(mDialLayers[i]);
+            if (bounds != null) {
+                canvas.save();
+                canvas.clipRect(bounds);
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            }
+
+            drawHeatRings(canvas, i);
+            if (i == HOURS) {
+                drawHoursClipped(canvas, 255, false);
+            } else {
+                drawMinutesClipped(canvas, 255, false);
+            }
+
+            if (bounds != null) {
+                canvas.restore();
+            }
+        }
+        canvas.setBitmap(null);
+    }
+
+    /**
+     * Draws the background and the cached dial layers for the current
+     * transition state. The layers only hold what differs between the hours
+     * and the minutes dial, so they are faded out and in like the numerals
+     * drawn without layers. The background may be translucent, so it must
+     * not be part of the layers.
+     */
+    private void drawDialLayers(Canvas canvas) {
+        canvas.drawCircle(mXCenter, mYCenter, mCircleRadius, mPaintBackground);
+
+        final Paint paint = mPaintDialLayer;
+        final int hoursAlpha = (int) (255f * (1f - mHoursToMinutes) + 0.5f);
+        if (hoursAlpha > 0) {
+            paint.setAlpha(hoursAlpha);
+            canvas.drawBitmap(mDialLayers[HOURS], 0, 0, paint);
+        }
+
+        final int minutesAlpha = (int) (255f * mHoursToMinutes + 0.5f);
+        if (minutesAlpha > 0) {
+            paint.setAlpha(minutesAlpha);
+            canvas.drawBitmap(mDialLayers[MINUTES], 0, 0, paint);
+        }
+    }
+
     private void showPicker(boolean hours, boolean animate) {
         if (mShowHours == hours) {
             return;
@@ -708,13 +1314,10 @@ public class RadialTimePickerView extends View {
         mShowHours = hours;
 
         if (animate) {
-            animatePicker(hours, ANIM_DURATION_NORMAL);
+            animatePicker(hours, TRANSITION_STIFFNESS_NORMAL);
         } else {
-            // If we have a pending or running animator, cancel it.
-            if (mHoursToMinutesAnimator != null && mHoursToMinutesAnimator.isStarted()) {
-                mHoursToMinutesAnimator.cancel();
-                mHoursToMinutesAnimator = null;
-            }
+            // If we have a running transition, stop it where it is.
+            mHoursToMinutesSpring.cancel();
             mHoursToMinutes = hours ? 0.0f : 1.0f;
         }
 
@@ -723,97 +1326,138 @@ public class RadialTimePickerView extends View {
         mTouchHelper.invalidateRoot();
     }
 
-    private void animatePicker(boolean hoursToMinutes, long duration) {
+    private void animatePicker(boolean hoursToMinutes, float stiffness) {
         final float target = hoursToMinutes ? HOURS : MINUTES;
-        if (mHoursToMinutes == target) {
-            // If we have a pending or running animator, cancel it.
-            if (mHoursToMinutesAnimator != null && mHoursToMinutesAnimator.isStarted()) {
-                mHoursToMinutesAnimator.cancel();
-                mHoursToMinutesAnimator = null;
+        final SpringAnimation spring = mHoursToMinutesSpring;
+        final SpringForce force = spring.getSpring();
+        if (!spring.isRunning()) {
+            if (mHoursToMinutes == target) {
+                // We're already showing the correct picker.
+                return;
             }
-
-            // We're already showing the correct picker.
+        } else if (force.getFinalPosition() == target && force.getStiffness() == stiffness) {
+            // Already heading there at the requested pace.
             return;
         }
 
-        ObjectAnimator oldHoursToMinutes = mHoursToMinutesAnimator;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            mHoursToMinutesAnimator = ObjectAnimator.ofFloat(this, HOURS_TO_MINUTES_OLD, target); // FIXME was HOURS_TO_MINUTES but it's not compatible anymore?
-        } else {
-            mHoursToMinutesAnimator = ObjectAnimator.ofFloat(this, HOURS_TO_MINUTES_OLD, target);
-        }
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            mHoursToMinutesAnimator.setAutoCancel(true);
-        } else {
-            if (oldHoursToMinutes != null) {
-                oldHoursToMinutes.cancel();
-            }
-        }
-        mHoursToMinutesAnimator.setDuration(duration);
-        mHoursToMinutesAnimator.start();
+        force.setStiffness(stiffness);
+        spring.animateToFinalPosition(target);
     }
 
     private void drawCircleBackground(Canvas canvas) {
         canvas.drawCircle(mXCenter, mYCenter, mCircleRadius, mPaintBackground);
+        drawHeatRings(canvas, mHoursToMinutes);
+    }
+
+    /**
+     * Draws the heat rings, cross-faded between the hours and the minutes
+     * dial.
+     *
+     * @param hoursToMinutes the transition state, 0 for the hours dial and
+     *                       1 for the minutes dial
+     */
+    private void drawHeatRings(Canvas canvas, float hoursToMinutes) {
+        if (mOccupancy == null) {
+            return;
+        }
+
+        final int hoursAlpha = (int) (255f * (1f - hoursToMinutes) + 0.5f);
+        if (hoursAlpha > 0) {
+            mHeatRings[HOURS].draw(canvas, hoursAlpha);
+            mHeatRings[HOURS_INNER].draw(canvas, hoursAlpha);
+        }
+
+        final int minutesAlpha = (int) (255f * hoursToMinutes + 0.5f);
+        if (minutesAlpha > 0) {
+            mHeatRings[MINUTES].draw(canvas, minutesAlpha);
+        }
     }
 
-    private void drawHours(Canvas canvas, Path selectorPath, float alphaMod) {
-        final int hoursAlpha = (int) (255f * (1f - mHoursToMinutes) * alphaMod + 0.5f);
+    /**
+     * Draws the inactive numerals of both pickers, cross-faded by the
+     * transition state. Used when the dial layers are not available.
+     */
+    private void drawInactiveNumerals(Canvas canvas) {
+        final int hoursAlpha = (int) (255f * (1f - mHoursToMinutes) + 0.5f);
         if (hoursAlpha > 0) {
-            // Exclude the selector region, then draw inner/outer hours with no
-            // activated states.
-            canvas.save();
-            canvas.clipPath(selectorPath, Region.Op.DIFFERENCE);
             drawHoursClipped(canvas, hoursAlpha, false);
-            canvas.restore();
+        }
 
-            // Intersect the selector region, then draw minutes with only
-            // activated states.
-            canvas.save();
-            canvas.clipPath(selectorPath, Region.Op.INTERSECT);
-            drawHoursClipped(canvas, hoursAlpha, true);
-            canvas.restore();
+        final int minutesAlpha = (int) (255f * mHoursToMinutes + 0.5f);
+        if (minutesAlpha > 0) {
+            drawMinutesClipped(canvas, minutesAlpha, false);
         }
     }
 
-    private void drawHoursClipped(Canvas canvas, int hoursAlpha, boolean showActivated) {
-        // Draw outer hours.
-        drawTextElements(canvas, mTextSize[HOURS], mTypeface, mTextColor[HOURS], mOuterTextHours,
-                mOuterTextX[HOURS], mOuterTextY[HOURS], mPaint[HOURS], hoursAlpha,
-                showActivated && !mIsOnInnerCircle, mSelectionDegrees[HOURS], showActivated);
+    /**
+     * Starts drawing activated numerals, either by clipping to the selector
+     * path or by opening a layer bounded by the selector circle. Must be
+     * paired with {@link #endActivatedNumerals(Canvas, int)}.
+     *
+     * @return the save count to restore
+     */
+    private int beginActivatedNumerals(Canvas canvas, Path selectorPath) {
+        if (mDrawnActivatedNumeralsMode == ACTIVATED_NUMERALS_MASK) {
+            final float radius = mSelectorRadius;
+            mClipOpCount++;
+            return canvas.saveLayer(mSelectorCenterX - radius, mSelectorCenterY - radius,
+                    mSelectorCenterX + radius, mSelectorCenterY + radius, null);
+        }
 
-        // Draw inner hours (13-00) for 24-hour time.
-        if (mIs24HourMode && mInnerTextHours != null) {
-            drawTextElements(canvas, mTextSize[HOURS_INNER], mTypeface, mTextColor[HOURS_INNER],
-                    mInnerTextHours, mInnerTextX, mInnerTextY, mPaint[HOURS], hoursAlpha,
-                    showActivated && mIsOnInnerCircle, mSelectionDegrees[HOURS], showActivated);
+        final int saveCount = canvas.save();
+        canvas.clipPath(selectorPath, Region.Op.INTERSECT);
+        mClipOpCount++;
+        return saveCount;
+    }
+
+    private void endActivatedNumerals(Canvas canvas, int saveCount) {
+        if (mDrawnActivatedNumeralsMode == ACTIVATED_NUMERALS_MASK) {
+            // Keep only the part of the layer covered by the selector circle.
+            canvas.drawCircle(mSelectorCenterX, mSelectorCenterY, mSelectorRadius,
+                    mPaintSelectorMask);
         }
+        canvas.restoreToCount(saveCount);
     }
 
-    private void drawMinutes(Canvas canvas, Path selectorPath, float alphaMod) {
-        final int minutesAlpha = (int) (255f * mHoursToMinutes * alphaMod + 0.5f);
-        if (minutesAlpha > 0) {
-            // Exclude the selector region, then draw minutes with no
-            // activated states.
-            canvas.save();
-            canvas.clipPath(selectorPath, Region.Op.DIFFERENCE);
-            drawMinutesClipped(canvas, minutesAlpha, false);
-            canvas.restore();
+    /**
+     * Draws the numerals under the selector in their activated colors. During
+     * the hours/minutes transition both pickers share a single clip or layer,
+     * so a frame never opens more than one.
+     */
+    private void drawActivatedNumerals(Canvas canvas, Path selectorPath) {
+        final int hoursAlpha = (int) (255f * (1f - mHoursToMinutes) + 0.5f);
+        final int minutesAlpha = (int) (255f * mHoursToMinutes + 0.5f);
 
-            // Intersect the selector region, then draw minutes with only
-            // activated states.
-            canvas.save();
-            canvas.clipPath(selectorPath, Region.Op.INTERSECT);
+        // Limit drawing to the selector region, then draw the numerals with
+        // only activated states.
+        final int saveCount = beginActivatedNumerals(canvas, selectorPath);
+        if (hoursAlpha > 0) {
+            drawHoursClipped(canvas, hoursAlpha, true);
+        }
+        if (minutesAlpha > 0) {
             drawMinutesClipped(canvas, minutesAlpha, true);
-            canvas.restore();
+        }
+        endActivatedNumerals(canvas, saveCount);
+    }
+
+    private void drawHoursClipped(Canvas canvas, int hoursAlpha, boolean showActivated) {
+        // Draw outer hours.
+        drawTextElements(canvas, HOURS, mOuterTextHours, mOuterTextX[HOURS], mOuterTextY[HOURS],
+                hoursAlpha, showActivated && !mIsOnInnerCircle, mSelectionDegrees[HOURS],
+                showActivated);
+
+        // Draw inner hours (13-00) for 24-hour time.
+        if (mIs24HourMode && mInnerTextHours != null) {
+            drawTextElements(canvas, HOURS_INNER, mInnerTextHours, mInnerTextX, mInnerTextY,
+                    hoursAlpha, showActivated && mIsOnInnerCircle, mSelectionDegrees[HOURS],
+                    showActivated);
         }
     }
 
     private void drawMinutesClipped(Canvas canvas, int minutesAlpha, boolean showActivated) {
-        drawTextElements(canvas, mTextSize[MINUTES], mTypeface, mTextColor[MINUTES], mMinutesText,
-                mOuterTextX[MINUTES], mOuterTextY[MINUTES], mPaint[MINUTES], minutesAlpha,
-                showActivated, mSelectionDegrees[MINUTES], showActivated);
+        drawTextElements(canvas, MINUTES, mMinutesText, mOuterTextX[MINUTES],
+                mOuterTextY[MINUTES], minutesAlpha, showActivated, mSelectionDegrees[MINUTES],
+                showActivated);
     }
 
     private void drawCenter(Canvas canvas, float alphaMod) {
@@ -826,50 +1470,80 @@ public class RadialTimePickerView extends View {
     }
 
     public static float lerp(float start, float stop, float amount) {
-        return start + (stop - start) * amount;
+        return ClockFaceGeometry.lerp(start, stop, amount);
     }
 
     /**
      * Returns an interpolated angle in degrees between a set of start and end
-     * angles.
-     * <p>
-     * Unlike {@link #lerp(float, float, float)}, the direction and distance of
-     * travel is determined by the shortest angle between the start and end
-     * angles. For example, if the starting angle is 0 and the ending angle is
-     * 350, then the interpolated angle will be in the range [0,-10] rather
-     * than [0,350].
+     * angles, travelling along the shortest direction.
      *
-     * @param start the starting angle in degrees
-     * @param end the ending angle in degrees
-     * @param amount the position between start and end in the range [0,1]
-     *               where 0 is the starting angle and 1 is the ending angle
-     * @return the interpolated angle in degrees
+     * @see ClockFaceGeometry#lerpDeg(float, float, float)
      */
     public static float lerpDeg(float start, float end, float amount) {
-        final float minAngle = (((end - start) + 180) % 360) - 180;
-        return minAngle * amount + start;
+        return ClockFaceGeometry.lerpDeg(start, end, amount);
     }
 
-    private void drawSelector(Canvas canvas, Path selectorPath) {
+    /**
+     * Updates the selector circle center, dot scale and hand end point for
+     * the current selection and transition state.
+     */
+    private void updateSelectorGeometry() {
         // Determine the current length, angle, and dot scaling factor.
         final int hoursIndex = mIsOnInnerCircle ? HOURS_INNER : HOURS;
         final int hoursInset = mTextInset[hoursIndex];
         final int hoursAngleDeg = mSelectionDegrees[hoursIndex % 2];
         final float hoursDotScale = mSelectionDegrees[hoursIndex % 2] % 30 != 0 ? 1 : 0;
 
-        final int minutesIndex = MINUTES;
-        final int minutesInset = mTextInset[minutesIndex];
-        final int minutesAngleDeg = mSelectionDegrees[minutesIndex];
-        final float minutesDotScale = mSelectionDegrees[minutesIndex] % 30 != 0 ? 1 : 0;
+        final int minutesIndex = MINUTES;
+        final int minutesInset = mTextInset[minutesIndex];
+        final int minutesAngleDeg = mSelectionDegrees[minutesIndex];
+        final float minutesDotScale = mSelectionDegrees[minutesIndex] % 30 != 0 ? 1 : 0;
+
+        mSelectorDotScale = lerp(hoursDotScale, minutesDotScale, mHoursToMinutes);//MathUtils.lerp(hoursDotScale, minutesDotScale, mHoursToMinutes);
+
+        // Calculate the current radius at which to place the selection circle.
+        // Outside of the transition the angle is a whole number of degrees.
+        final int selRadius = mSelectorRadius;
+        final float selLength;
+        final float selAngleDeg;
+        if (mHoursToMinutes == 0) {
+            selLength = mCircleRadius - hoursInset;
+            selAngleDeg = hoursAngleDeg;
+        } else if (mHoursToMinutes == 1) {
+            selLength = mCircleRadius - minutesInset;
+            selAngleDeg = minutesAngleDeg;
+        } else {
+            selLength = mCircleRadius - lerp(hoursInset, minutesInset, mHoursToMinutes);
+            selAngleDeg = lerpDeg(hoursAngleDeg, minutesAngleDeg, mHoursToMinutes);
+        }
+
+        if (selAngleDeg == mSelectorGeometryAngle && selLength == mSelectorGeometryLength) {
+            // The hand hasn't moved since the last update.
+            return;
+        }
+        mSelectorGeometryAngle = selAngleDeg;
+        mSelectorGeometryLength = selLength;
+
+        final float sin = ClockFaceGeometry.sinDeg(selAngleDeg);
+        final float cos = ClockFaceGeometry.cosDeg(selAngleDeg);
+        mSelectorCenterX = mXCenter + selLength * sin;
+        mSelectorCenterY = mYCenter - selLength * cos;
+
+        // Shorten the line to only go from the edge of the center dot to the
+        // edge of the selection circle.
+        final float lineLength = selLength - selRadius;
+        final int centerX = mXCenter + (int) (mCenterDotRadius * sin);
+        final int centerY = mYCenter - (int) (mCenterDotRadius * cos);
+        mSelectorLineEndX = centerX + (int) (lineLength * sin);
+        mSelectorLineEndY = centerY - (int) (lineLength * cos);
+    }
+
+    private void drawSelector(Canvas canvas, Path selectorPath) {
+        updateSelectorGeometry();
 
-        // Calculate the current radius at which to place the selection circle.
         final int selRadius = mSelectorRadius;
-        final float selLength =
-                mCircleRadius - lerp(hoursInset, minutesInset, mHoursToMinutes);//MathUtils.lerp(hoursInset, minutesInset, mHoursToMinutes);
-        final double selAngleRad =
-                Math.toRadians(lerpDeg(hoursAngleDeg, minutesAngleDeg, mHoursToMinutes));//Math.toRadians(MathUtils.lerpDeg(hoursAngleDeg, minutesAngleDeg, mHoursToMinutes));
-        final float selCenterX = mXCenter + selLength * (float) Math.sin(selAngleRad);
-        final float selCenterY = mYCenter - selLength * (float) Math.cos(selAngleRad);
+        final float selCenterX = mSelectorCenterX;
+        final float selCenterY = mSelectorCenterY;
 
         // Draw the selection circle.
         final Paint paint = mPaintSelector[SELECTOR_CIRCLE];
@@ -879,34 +1553,78 @@ public class RadialTimePickerView extends View {
         canvas.drawCircle(selCenterX, selCenterY, selRadius, paint);
 
         // If needed, set up the clip path for later.
-        if (selectorPath != null) {
+        if (selectorPath != null && mDrawnActivatedNumeralsMode == ACTIVATED_NUMERALS_CLIP) {
             selectorPath.reset();
             selectorPath.addCircle(selCenterX, selCenterY, selRadius, Path.Direction.CCW);
         }
 
         // Draw the dot if we're between two items.
-        final float dotScale = lerp(hoursDotScale, minutesDotScale, mHoursToMinutes);//MathUtils.lerp(hoursDotScale, minutesDotScale, mHoursToMinutes);
+        final float dotScale = mSelectorDotScale;
         if (dotScale > 0) {
             final Paint dotPaint = mPaintSelector[SELECTOR_DOT];
             dotPaint.setColor(mSelectorDotColor);
             canvas.drawCircle(selCenterX, selCenterY, mSelectorDotRadius * dotScale, dotPaint);
         }
 
-        // Shorten the line to only go from the edge of the center dot to the
-        // edge of the selection circle.
-        final double sin = Math.sin(selAngleRad);
-        final double cos = Math.cos(selAngleRad);
-        final float lineLength = selLength - selRadius;
-        final int centerX = mXCenter + (int) (mCenterDotRadius * sin);
-        final int centerY = mYCenter - (int) (mCenterDotRadius * cos);
-        final float linePointX = centerX + (int) (lineLength * sin);
-        final float linePointY = centerY - (int) (lineLength * cos);
-
         // Draw the line.
         final Paint linePaint = mPaintSelector[SELECTOR_LINE];
         linePaint.setColor(mSelectorColor);
         linePaint.setStrokeWidth(mSelectorStroke);
-        canvas.drawLine(mXCenter, mYCenter, linePointX, linePointY, linePaint);
+        canvas.drawLine(mXCenter, mYCenter, mSelectorLineEndX, mSelectorLineEndY, linePaint);
+    }
+
+    /**
+     * Computes the bounds covered by the selector circle, the hand and the
+     * center dot for the current selector geometry. The activated numerals
+     * are always drawn within the selector circle.
+     */
+    private void getSelectorBounds(Rect outBounds) {
+        // Pad by a pixel to account for anti-aliasing.
+        final int selRadius = mSelectorRadius + 1;
+        outBounds.set((int) Math.floor(mSelectorCenterX - selRadius),
+                (int) Math.floor(mSelectorCenterY - selRadius),
+                (int) Math.ceil(mSelectorCenterX + selRadius),
+                (int) Math.ceil(mSelectorCenterY + selRadius));
+
+        // The hand runs from the center to the selector circle, so the union
+        // with the center dot bounds covers it.
+        final int centerRadius = Math.max(mCenterDotRadius, mSelectorStroke) + 1;
+        outBounds.union(mXCenter - centerRadius, mYCenter - centerRadius,
+                mXCenter + centerRadius, mYCenter + centerRadius);
+    }
+
+    /**
+     * Invalidates the view after the selection moved. When the view was last
+     * drawn to a software canvas and nothing else on the dial changed, only
+     * the region covered by the previous and the new selector is invalidated.
+     * <p>
+     * The view's own {@link #isHardwareAccelerated()} can't tell, since it is
+     * also true for a software layer in a hardware-accelerated window.
+     */
+    @SuppressWarnings("deprecation")
+    private void invalidateSelector() {
+        if (mDrawnToHardwareCanvas || mDrawnSelectorBounds.isEmpty()
+                || mLevelOfDetail != LEVEL_OF_DETAIL_FULL
+                || (mHoursToMinutes != 0 && mHoursToMinutes != 1)
+                || isDialContentDirty()) {
+            invalidate();
+            return;
+        }
+
+        final Rect dirty = mDirtyRect;
+        updateSelectorGeometry();
+        getSelectorBounds(dirty);
+        dirty.union(mDrawnSelectorBounds);
+        invalidate(dirty);
+    }
+
+    /**
+     * @return {@code true} if the dial content outside the selector, such as
+     *         numerals or heat rings, changed since the last draw
+     */
+    private boolean isDialContentDirty() {
+        return (mDialLayersDirty && !mDialLayersUnavailable)
+                || !mDialLayersDirtyBounds.isEmpty();
     }
 
     private void calculatePositionsHours() {
@@ -920,7 +1638,7 @@ public class RadialTimePickerView extends View {
         // If we have an inner circle, calculate those positions too.
         if (mIs24HourMode) {
             final int innerNumbersRadius = mCircleRadius - mTextInset[HOURS_INNER];
-            calculatePositions(mPaint[HOURS], innerNumbersRadius, mXCenter, mYCenter,
+            calculatePositions(mPaint[HOURS_INNER], innerNumbersRadius, mXCenter, mYCenter,
                     mTextSize[HOURS_INNER], mInnerTextX, mInnerTextY);
         }
     }
@@ -945,20 +1663,21 @@ public class RadialTimePickerView extends View {
         paint.setTextSize(textSize);
         yCenter -= (paint.descent() + paint.ascent()) / 2;
 
-        for (int i = 0; i < NUM_POSITIONS; i++) {
-            x[i] = xCenter - radius * COS_30[i];
-            y[i] = yCenter - radius * SIN_30[i];
-        }
+        ClockFaceGeometry.calculatePositions(radius, xCenter, yCenter, x, y);
     }
 
     /**
      * Draw the 12 text values at the positions specified by the textGrid parameters.
+     *
+     * @param ring one of {@link #HOURS}, {@link #HOURS_INNER} or {@link #MINUTES}
      */
-    private void drawTextElements(Canvas canvas, float textSize, Typeface typeface,
-            ColorStateList textColor, String[] texts, float[] textX, float[] textY, Paint paint,
-            int alpha, boolean showActivated, int activatedDegrees, boolean activatedOnly) {
-        paint.setTextSize(textSize);
-        paint.setTypeface(typeface);
+    private void drawTextElements(Canvas canvas, int ring, String[] texts, float[] textX,
+            float[] textY, int alpha, boolean showActivated, int activatedDegrees,
+            boolean activatedOnly) {
+        final Paint paint = mPaint[ring];
+        final RadialStyle style = mStyle;
+        final int disabled = mInputEnabled ? 0 : TEXT_COLOR_DISABLED;
+        final int disabledNumerals = mDisabledNumerals[ring];
 
         // The activated index can touch a range of elements.
         final float activatedIndex = activatedDegrees / (360.0f / NUM_POSITIONS);
@@ -971,18 +1690,26 @@ public class RadialTimePickerView extends View {
                 continue;
             }
 
-            final int stateMask = StateSet.VIEW_STATE_ENABLED
-                    | (showActivated && activated ? StateSet.VIEW_STATE_ACTIVATED : 0);
-            final int color = textColor.getColorForState(StateSet.get(stateMask), 0);
+            final int color = style.getTextColor(ring, disabled
+                    | ((disabledNumerals & (1 << i)) != 0 ? TEXT_COLOR_DISABLED : 0)
+                    | (showActivated && activated ? TEXT_COLOR_ACTIVATED : 0));
             //TimePicker Text color
             paint.setColor(color);
             paint.setAlpha(getMultipliedAlpha(color, alpha));
 
             canvas.drawText(texts[i], textX[i], textY[i], paint);
+            mTextOpCount++;
         }
     }
 
-    private int getDegreesFromXY(float x, float y, boolean constrainOutside) {
+    /**
+     * Returns whether the point is within the touchable area of the current
+     * picker.
+     *
+     * @param constrainOutside {@code true} to also reject points outside the
+     *                         outer edge of the numerals
+     */
+    private boolean isInTouchableArea(float x, float y, boolean constrainOutside) {
         // Ensure the point is inside the touchable area.
         final int innerBound;
         final int outerBound;
@@ -996,34 +1723,259 @@ public class RadialTimePickerView extends View {
             outerBound = center + mSelectorRadius;
         }
 
+        // Compare squared distances to avoid the square root.
         final double dX = x - mXCenter;
         final double dY = y - mYCenter;
-        final double distFromCenter = Math.sqrt(dX * dX + dY * dY);
-        if (distFromCenter < innerBound || constrainOutside && distFromCenter > outerBound) {
-            return -1;
+        final double distSquared = dX * dX + dY * dY;
+        final boolean insideInner = innerBound > 0 && distSquared < (double) innerBound * innerBound;
+        final boolean outsideOuter = outerBound < 0 || distSquared > (double) outerBound * outerBound;
+        return !(insideInner || constrainOutside && outsideOuter);
+    }
+
+    /**
+     * Returns the touched degrees snapped to the nearest hour, in the range
+     * [0,330]. The point must be within the touchable area.
+     */
+    private int getSnappedHourDegreesFromXY(float x, float y) {
+        final int snapDegrees = mHitTestGrid.getSnappedHourDegrees(x, y);
+        if (snapDegrees != -1) {
+            return snapDegrees;
+        }
+        final int degrees = ClockFaceGeometry.getDegreesFromDelta(x - mXCenter, y - mYCenter);
+        return ClockFaceGeometry.snapOnly30s(degrees, 0) % 360;
+    }
+
+    /**
+     * Returns the touched degrees snapped to a selectable minute, in the
+     * range [0,354]. With a step of one minute, visible minutes are
+     * preferred. The point must be within the touchable area.
+     */
+    private int getSnappedMinuteDegreesFromXY(float x, float y) {
+        final int snapDegrees = mHitTestGrid.getSnappedMinuteDegrees(x, y);
+        if (snapDegrees != -1) {
+            return snapDegrees;
         }
+        final int degrees = ClockFaceGeometry.getDegreesFromDelta(x - mXCenter, y - mYCenter);
+        return mMinuteSnap.snap(degrees);
+    }
 
-        // Convert to degrees.
-        final int degrees = (int) (Math.toDegrees(Math.atan2(dY, dX) + Math.PI / 2) + 0.5);
-        if (degrees < 0) {
-            return degrees + 360;
-        } else {
-            return degrees;
+    /**
+     * Returns the minute directly under the point, without snapping. The
+     * point must be within the touchable area.
+     */
+    private int getTouchedMinuteFromXY(float x, float y) {
+        final int minute = mHitTestGrid.getTouchedMinute(x, y);
+        if (minute != -1) {
+            return minute;
         }
+        final int degrees = ClockFaceGeometry.getDegreesFromDelta(x - mXCenter, y - mYCenter);
+        return getMinuteForDegrees(degrees);
     }
 
     private boolean getInnerCircleFromXY(float x, float y) {
         if (mIs24HourMode && mShowHours) {
             final double dX = x - mXCenter;
             final double dY = y - mYCenter;
-            final double distFromCenter = Math.sqrt(dX * dX + dY * dY);
-            return distFromCenter <= mHalfwayDist;
+            return dX * dX + dY * dY <= (double) mHalfwayDist * mHalfwayDist;
         }
         return false;
     }
 
     boolean mChangedDuringTouch = false;
 
+    /**
+     * Sets whether touch input should be extrapolated ahead of the latest
+     * sample while dragging, reducing the perceived latency of the hand.
+     * The released position is never extrapolated.
+     *
+     * @param enabled {@code true} to enable touch prediction
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictionEnabled;
+    }
+
+    /**
+     * Sets the number of minutes between selectable values on the minutes
+     * picker. Touch and accessibility input snap to multiples of the step;
+     * values set through {@link #setCurrentMinute(int)} are not snapped.
+     *
+     * @param step one of 1, 5, 10, 15, 20 or 30
+     * @throws IllegalArgumentException if the step is not supported
+     */
+    public void setMinuteStep(int step) {
+        final SnapTable minuteSnap = SnapTable.forMinuteStep(step);
+        if (mMinuteSnap == minuteSnap) {
+            return;
+        }
+
+        mMinuteSnap = minuteSnap;
+        if (getWidth() > 0) {
+            buildHitTestGrid();
+        }
+        updateDisabledNumerals();
+        mTouchHelper.invalidateRoot();
+    }
+
+    public int getMinuteStep() {
+        return mMinuteSnap.getStepMinutes();
+    }
+
+    /**
+     * Sets the times that can be selected. Numerals of hours without any
+     * selectable minute and of unavailable minutes are drawn disabled, and
+     * touch and accessibility input can't select them. Values set through
+     * {@link #setCurrentHour(int)} and {@link #setCurrentMinute(int)} are not
+     * checked.
+     * <p>
+     * Call this again after modifying the availability.
+     *
+     * @param availability the selectable times, or {@code null} to allow any
+     *                     time
+     */
+    public void setAvailability(TimeAvailability availability) {
+        mAvailability = availability;
+        updateDisabledNumerals();
+        if (!mShowHours) {
+            mTouchHelper.invalidateMinuteNode(getCurrentMinute());
+        }
+    }
+
+    public TimeAvailability getAvailability() {
+        return mAvailability;
+    }
+
+    /**
+     * Refreshes the numerals and accessibility nodes affected by a change
+     * to the current availability.
+     *
+     * @param changedHours mask with bit {@code h} set for every hour
+     *                     {@code h} whose available minutes changed
+     * @see TimeAvailability#update(int, int, boolean)
+     */
+    public void onAvailabilityChanged(int changedHours) {
+        if (changedHours == 0) {
+            return;
+        }
+
+        updateDisabledNumerals();
+        if (!mShowHours && (changedHours & 1 << getCurrentHour()) != 0) {
+            // The current minute may have a node between the numerals.
+            mTouchHelper.invalidateMinuteNode(getCurrentMinute());
+        }
+    }
+
+    /**
+     * @param hour the hour in 24-hour time
+     * @return whether the hour has a selectable minute
+     */
+    private boolean isHourSelectable(int hour) {
+        return mAvailability == null
+                || mAvailability.isHourAvailable(hour, mMinuteSnap.getStepMinutes());
+    }
+
+    /**
+     * @return whether the minute can be selected within the current hour
+     */
+    private boolean isMinuteSelectable(int minute) {
+        return mAvailability == null || mAvailability.isAvailable(getCurrentHour(), minute);
+    }
+
+    /**
+     * Returns the selectable hour closest to a position on the hours dial,
+     * using the disabled numeral masks. In 24-hour mode the other ring at
+     * the same angle is tried before moving further away.
+     *
+     * @param degrees the angle of the position, a multiple of
+     *                {@link ClockFaceGeometry#DEGREES_FOR_ONE_HOUR}
+     * @param innerCircle whether the position is on the inner ring
+     * @return the hour in 24-hour time, or -1 if no hour is selectable
+     */
+    private int getNearestSelectableHour(int degrees, boolean innerCircle) {
+        final int position = degrees / DEGREES_FOR_ONE_HOUR;
+        final int ring = innerCircle ? HOURS_INNER : HOURS;
+        final int otherRing = innerCircle ? HOURS : HOURS_INNER;
+        final int[] disabled = mDisabledNumerals;
+        for (int distance = 0; distance <= NUM_POSITIONS / 2; distance++) {
+            for (int sign = 1; sign >= -1; sign -= 2) {
+                final int i = (position + sign * distance + NUM_POSITIONS) % NUM_POSITIONS;
+                if ((disabled[ring] & 1 << i) == 0) {
+                    return getHourForDegrees(i * DEGREES_FOR_ONE_HOUR, innerCircle);
+                }
+                if (mIs24HourMode && (disabled[otherRing] & 1 << i) == 0) {
+                    return getHourForDegrees(i * DEGREES_FOR_ONE_HOUR, !innerCircle);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Updates which numerals are drawn disabled. The minute numerals depend
+     * on the current hour and the hour numerals on the AM/PM state, so this
+     * runs whenever those change.
+     */
+    private void updateDisabledNumerals() {
+        int outer = 0;
+        int inner = 0;
+        int minutes = 0;
+        if (mAvailability != null) {
+            for (int i = 0; i < NUM_POSITIONS; i++) {
+                final int outerHour = mIs24HourMode ? HOURS_NUMBERS[i]
+                        : ClockFaceGeometry.hour12To24(HOURS_NUMBERS[i], mAmOrPm);
+                if (!isHourSelectable(outerHour)) {
+                    outer |= 1 << i;
+                }
+                if (mIs24HourMode && !isHourSelectable(HOURS_NUMBERS_24[i])) {
+                    inner |= 1 << i;
+                }
+                if (!isMinuteSelectable(MINUTES_NUMBERS[i])) {
+                    minutes |= 1 << i;
+                }
+            }
+        }
+
+        final int[] disabled = mDisabledNumerals;
+        final int changedOuter = disabled[HOURS] ^ outer;
+        final int changedInner = disabled[HOURS_INNER] ^ inner;
+        final int changedMinutes = disabled[MINUTES] ^ minutes;
+        if ((changedOuter | changedInner | changedMinutes) == 0) {
+            return;
+        }
+
+        disabled[HOURS] = outer;
+        disabled[HOURS_INNER] = inner;
+        disabled[MINUTES] = minutes;
+
+        // Render again only the numerals that changed, and refresh the
+        // accessibility nodes of those on the current picker.
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            final int bit = 1 << i;
+            if ((changedOuter & bit) != 0) {
+                invalidateDialLayerNumeral(HOURS, i);
+                if (mShowHours) {
+                    mTouchHelper.invalidateHourNode(HOURS_NUMBERS[i]);
+                }
+            }
+            if ((changedInner & bit) != 0) {
+                invalidateDialLayerNumeral(HOURS_INNER, i);
+                if (mShowHours) {
+                    mTouchHelper.invalidateHourNode(HOURS_NUMBERS_24[i]);
+                }
+            }
+            if ((changedMinutes & bit) != 0) {
+                invalidateDialLayerNumeral(MINUTES, i);
+                if (!mShowHours) {
+                    mTouchHelper.invalidateMinuteNode(MINUTES_NUMBERS[i]);
+                }
+            }
+        }
+        invalidate();
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (!mInputEnabled) {
@@ -1040,6 +1992,7 @@ public class RadialTimePickerView extends View {
             if (action == MotionEvent.ACTION_DOWN) {
                 // This is a new event stream, reset whether the value changed.
                 mChangedDuringTouch = false;
+                mLastTouchTime = -1;
             } else if (action == MotionEvent.ACTION_UP) {
                 autoAdvance = true;
 
@@ -1050,54 +2003,108 @@ public class RadialTimePickerView extends View {
                 }
             }
 
-            mChangedDuringTouch |= handleTouchInput(
-                    event.getX(), event.getY(), forceSelection, autoAdvance);
+            mChangedDuringTouch |= handleTouchInput(event, forceSelection, autoAdvance);
         }
 
         return true;
     }
 
+    /**
+     * Applies all samples of a touch event, including the batched historical
+     * samples, and then notifies the listener and invalidates at most once.
+     *
+     * @return {@code true} if the listener was notified
+     */
     private boolean handleTouchInput(
-            float x, float y, boolean forceSelection, boolean autoAdvance) {
-        final boolean isOnInnerCircle = getInnerCircleFromXY(x, y);
-        final int degrees = getDegreesFromXY(x, y, false);
-        if (degrees == -1) {
-            return false;
+            MotionEvent event, boolean forceSelection, boolean autoAdvance) {
+        boolean touched = false;
+        boolean valueChanged = false;
+        final int previousValue = mShowHours ? getCurrentHour() : getCurrentMinute();
+
+        final int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            final int result = updateSelectionFromXY(
+                    event.getHistoricalX(h), event.getHistoricalY(h));
+            touched |= result != TOUCH_SAMPLE_OUTSIDE;
+            valueChanged |= result == TOUCH_SAMPLE_CHANGED;
         }
 
-        // Ensure we're showing the correct picker.
-        animatePicker(mShowHours, ANIM_DURATION_TOUCH);
-
-        final @PickerType int type;
-        final int newValue;
-        final boolean valueChanged;
+        float x = event.getX();
+        float y = event.getY();
+        final long eventTime = event.getEventTime();
+        if (mTouchPredictionEnabled && event.getActionMasked() == MotionEvent.ACTION_MOVE) {
+            // Use the most recent earlier sample to estimate the velocity.
+            final float prevX;
+            final float prevY;
+            final long prevTime;
+            if (historySize > 0) {
+                prevX = event.getHistoricalX(historySize - 1);
+                prevY = event.getHistoricalY(historySize - 1);
+                prevTime = event.getHistoricalEventTime(historySize - 1);
+            } else {
+                prevX = mLastTouchX;
+                prevY = mLastTouchY;
+                prevTime = mLastTouchTime;
+            }
 
-        if (mShowHours) {
-            final int snapDegrees = snapOnly30s(degrees, 0) % 360;
-            valueChanged = mIsOnInnerCircle != isOnInnerCircle
-                    || mSelectionDegrees[HOURS] != snapDegrees;
-            mIsOnInnerCircle = isOnInnerCircle;
-            mSelectionDegrees[HOURS] = snapDegrees;
-            type = HOURS;
-            newValue = getCurrentHour();
+            mLastTouchX = x;
+            mLastTouchY = y;
+            mLastTouchTime = eventTime;
+
+            if (prevTime >= 0 && eventTime > prevTime) {
+                final float scale = (float) TOUCH_PREDICTION_MS / (eventTime - prevTime);
+                float dX = (x - prevX) * scale;
+                float dY = (y - prevY) * scale;
+
+                // Don't extrapolate further than the selector radius.
+                final float distSquared = dX * dX + dY * dY;
+                final float maxDist = mSelectorRadius;
+                if (distSquared > maxDist * maxDist) {
+                    final float ratio = maxDist / (float) Math.sqrt(distSquared);
+                    dX *= ratio;
+                    dY *= ratio;
+                }
+                x += dX;
+                y += dY;
+            }
         } else {
-            final int snapDegrees = snapPrefer30s(degrees) % 360;
-            valueChanged = mSelectionDegrees[MINUTES] != snapDegrees;
-            mSelectionDegrees[MINUTES] = snapDegrees;
-            type = MINUTES;
-            newValue = getCurrentMinute();
+            mLastTouchX = x;
+            mLastTouchY = y;
+            mLastTouchTime = eventTime;
+        }
+
+        final int result = updateSelectionFromXY(x, y);
+        touched |= result != TOUCH_SAMPLE_OUTSIDE;
+        valueChanged |= result == TOUCH_SAMPLE_CHANGED;
+        if (!touched) {
+            return false;
         }
 
+        // Ensure we're showing the correct picker.
+        animatePicker(mShowHours, TRANSITION_STIFFNESS_TOUCH);
+
         if (valueChanged || forceSelection || autoAdvance) {
             // Fire the listener even if we just need to auto-advance.
             if (mListener != null) {
+                final @PickerType int type = mShowHours ? HOURS : MINUTES;
+                final int newValue = mShowHours ? getCurrentHour() : getCurrentMinute();
                 mListener.onValueSelected(type, newValue, autoAdvance);
             }
 
             // Only provide feedback if the value actually changed.
             if (valueChanged || forceSelection) {
                 performHapticFeedback(HapticFeedbackConstants.CLOCK_TICK);
-                invalidate();
+            }
+
+            // Skip the repaint if the snapped value is unchanged.
+            if (valueChanged) {
+                mInvalidationCause = RenderMetricsListener.INVALIDATION_CAUSE_TOUCH;
+                invalidateSelector();
+                if (mShowHours) {
+                    mTouchHelper.invalidateHourSelection(previousValue, getCurrentHour());
+                } else {
+                    mTouchHelper.invalidateMinuteSelection(previousValue, getCurrentMinute());
+                }
             }
             return true;
         }
@@ -1105,6 +2112,59 @@ public class RadialTimePickerView extends View {
         return false;
     }
 
+    /**
+     * Updates the selection for a single touch sample without notifying the
+     * listener or invalidating.
+     *
+     * @return one of {@link #TOUCH_SAMPLE_OUTSIDE},
+     *         {@link #TOUCH_SAMPLE_UNCHANGED} or {@link #TOUCH_SAMPLE_CHANGED}
+     */
+    private int updateSelectionFromXY(float x, float y) {
+        final boolean isOnInnerCircle = getInnerCircleFromXY(x, y);
+        if (!isInTouchableArea(x, y, false)) {
+            return TOUCH_SAMPLE_OUTSIDE;
+        }
+
+        final boolean valueChanged;
+        if (mShowHours) {
+            int snapDegrees = getSnappedHourDegreesFromXY(x, y);
+            boolean innerCircle = isOnInnerCircle;
+            final int hour = getHourForDegrees(snapDegrees, innerCircle);
+            if (!isHourSelectable(hour)) {
+                // Jump to the closest free hour instead.
+                final int nearestHour = getNearestSelectableHour(snapDegrees, innerCircle);
+                if (nearestHour < 0) {
+                    return TOUCH_SAMPLE_UNCHANGED;
+                }
+                snapDegrees = nearestHour % 12 * DEGREES_FOR_ONE_HOUR;
+                innerCircle = getInnerCircleForHour(nearestHour);
+            }
+            valueChanged = mIsOnInnerCircle != innerCircle
+                    || mSelectionDegrees[HOURS] != snapDegrees;
+            mIsOnInnerCircle = innerCircle;
+            mSelectionDegrees[HOURS] = snapDegrees;
+            if (valueChanged) {
+                updateDisabledNumerals();
+            }
+        } else {
+            int snapDegrees = getSnappedMinuteDegreesFromXY(x, y);
+            final int minute = getMinuteForDegrees(snapDegrees);
+            if (!isMinuteSelectable(minute)) {
+                // Jump to the closest free minute of the current hour instead.
+                final int nearestMinute = mAvailability.getNearestSelectableMinute(
+                        getCurrentHour(), minute, mMinuteSnap.getStepMinutes());
+                if (nearestMinute < 0) {
+                    return TOUCH_SAMPLE_UNCHANGED;
+                }
+                snapDegrees = getDegreesForMinute(nearestMinute);
+            }
+            valueChanged = mSelectionDegrees[MINUTES] != snapDegrees;
+            mSelectionDegrees[MINUTES] = snapDegrees;
+        }
+
+        return valueChanged ? TOUCH_SAMPLE_CHANGED : TOUCH_SAMPLE_UNCHANGED;
+    }
+
     @Override
     public boolean dispatchHoverEvent(MotionEvent event) {
         // First right-of-refusal goes the touch exploration helper.
@@ -1115,7 +2175,10 @@ public class RadialTimePickerView extends View {
     }
 
     public void setInputEnabled(boolean inputEnabled) {
-        mInputEnabled = inputEnabled;
+        if (mInputEnabled != inputEnabled) {
+            mInputEnabled = inputEnabled;
+            invalidateDialLayers();
+        }
         invalidate();
     }
 
@@ -1125,8 +2188,7 @@ public class RadialTimePickerView extends View {
         if (!isEnabled()) {
             return null;
         }
-        final int degrees = getDegreesFromXY(event.getX(), event.getY(), false);
-        if (degrees != -1) {
+        if (isInTouchableArea(event.getX(), event.getY(), false)) {
             return PointerIcon.getSystemIcon(getContext(), PointerIcon.TYPE_HAND);
         }
         return super.onResolvePointerIcon(event, pointerIndex);
@@ -1144,11 +2206,33 @@ public class RadialTimePickerView extends View {
         private final int SHIFT_VALUE = 8;
         private final int MASK_VALUE = 0xFF;
 
-        /** Increment in which virtual views are exposed for minutes. */
+        /** Smallest increment in which virtual views are exposed for minutes. */
         private final int MINUTE_INCREMENT = 5;
 
+        /**
+         * Boxed ids of every possible node, indexed by value, so that
+         * enumerating the visible nodes doesn't allocate.
+         */
+        private final Integer[] mHourIds = new Integer[24];
+        private final Integer[] mMinuteIds = new Integer[MINUTES_IN_CIRCLE];
+
+        /** Scratch buffer for {@link #getVisibleVirtualViewIds(int[])}. */
+        private final int[] mVisibleIds = new int[MINUTES_IN_CIRCLE + 1];
+
+        /** Node descriptions by value, formatted for {@link #mDescriptionLocale}. */
+        private final String[] mHourDescriptions = new String[24];
+        private final String[] mMinuteDescriptions = new String[MINUTES_IN_CIRCLE];
+        private Locale mDescriptionLocale;
+
         public RadialPickerTouchHelper() {
             super(RadialTimePickerView.this);
+
+            for (int i = 0; i < mHourIds.length; i++) {
+                mHourIds[i] = makeId(TYPE_HOUR, i);
+            }
+            for (int i = 0; i < mMinuteIds.length; i++) {
+                mMinuteIds[i] = makeId(TYPE_MINUTE, i);
+            }
         }
 
         @Override
@@ -1191,18 +2275,28 @@ public class RadialTimePickerView extends View {
                     minValue = 0;
                     maxValue = 23;
                 } else {
-                    initialStep = hour24To12(currentHour24);
+                    initialStep = ClockFaceGeometry.hour24To12(currentHour24);
                     minValue = 1;
                     maxValue = 12;
                 }
             } else {
-                stepSize = 5;
+                stepSize = getMinuteIncrement();
                 initialStep = getCurrentMinute() / stepSize;
                 minValue = 0;
-                maxValue = 55;
+                maxValue = MINUTES_IN_CIRCLE - stepSize;
+            }
+
+            int nextValue = (initialStep + step) * stepSize;
+
+            // Skip values that can't be selected, staying put if there are none.
+            while (nextValue >= minValue && nextValue <= maxValue
+                    && !isVirtualViewSelectable(mShowHours ? TYPE_HOUR : TYPE_MINUTE, nextValue)) {
+                nextValue += step * stepSize;
+            }
+            if (mAvailability != null && (nextValue < minValue || nextValue > maxValue)) {
+                return;
             }
 
-            final int nextValue = (initialStep + step) * stepSize;
             final int clampedValue = MathUtils.clamp(nextValue, minValue, maxValue);//MathUtils.constrain(nextValue, minValue, maxValue);
             if (mShowHours) {
                 setCurrentHour(clampedValue);
@@ -1214,23 +2308,26 @@ public class RadialTimePickerView extends View {
         @Override
         protected int getVirtualViewAt(float x, float y) {
             final int id;
-            final int degrees = getDegreesFromXY(x, y, true);
-            if (degrees != -1) {
-                final int snapDegrees = snapOnly30s(degrees, 0) % 360;
+            if (isInTouchableArea(x, y, true)) {
+                final int snapDegrees = getSnappedHourDegreesFromXY(x, y);
                 if (mShowHours) {
                     final boolean isOnInnerCircle = getInnerCircleFromXY(x, y);
                     final int hour24 = getHourForDegrees(snapDegrees, isOnInnerCircle);
-                    final int hour = mIs24HourMode ? hour24 : hour24To12(hour24);
+                    final int hour = mIs24HourMode ? hour24 : ClockFaceGeometry.hour24To12(hour24);
                     id = makeId(TYPE_HOUR, hour);
                 } else {
                     final int current = getCurrentMinute();
-                    final int touched = getMinuteForDegrees(degrees);
-                    final int snapped = getMinuteForDegrees(snapDegrees);
+                    final int touched = getTouchedMinuteFromXY(x, y);
+                    final int snapped = getMinuteForDegrees(
+                            mMinuteSnap.getStepMinutes() > MINUTE_INCREMENT
+                                    ? getSnappedMinuteDegreesFromXY(x, y) : snapDegrees);
 
                     // If the touched minute is closer to the current minute
                     // than it is to the snapped minute, return current.
-                    final int currentOffset = getCircularDiff(current, touched, MINUTES_IN_CIRCLE);
-                    final int snappedOffset = getCircularDiff(snapped, touched, MINUTES_IN_CIRCLE);
+                    final int currentOffset = ClockFaceGeometry.getCircularDiff(
+                            current, touched, MINUTES_IN_CIRCLE);
+                    final int snappedOffset = ClockFaceGeometry.getCircularDiff(
+                            snapped, touched, MINUTES_IN_CIRCLE);
                     final int minute;
                     if (currentOffset < snappedOffset) {
                         minute = current;
@@ -1246,40 +2343,44 @@ public class RadialTimePickerView extends View {
             return id;
         }
 
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            final int[] ids = mVisibleIds;
+            final int count = getVisibleVirtualViewIds(ids);
+            final Integer[] boxedIds = mShowHours ? mHourIds : mMinuteIds;
+            for (int i = 0; i < count; i++) {
+                virtualViewIds.add(boxedIds[getValueFromId(ids[i])]);
+            }
+        }
+
         /**
-         * Returns the difference in degrees between two values along a circle.
+         * Writes the ids of the visible nodes in traversal order.
          *
-         * @param first value in the range [0,max]
-         * @param second value in the range [0,max]
-         * @param max the maximum value along the circle
-         * @return the difference in between the two values
+         * @param outIds the array to write to, with room for every minute
+         * @return the number of ids written
          */
-        private int getCircularDiff(int first, int second, int max) {
-            final int diff = Math.abs(first - second);
-            final int midpoint = max / 2;
-            return (diff > midpoint) ? (max - diff) : diff;
-        }
-
-        @Override
-        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+        private int getVisibleVirtualViewIds(int[] outIds) {
+            int count = 0;
             if (mShowHours) {
                 final int min = mIs24HourMode ? 0 : 1;
                 final int max = mIs24HourMode ? 23 : 12;
                 for (int i = min; i <= max ; i++) {
-                    virtualViewIds.add(makeId(TYPE_HOUR, i));
+                    outIds[count++] = makeId(TYPE_HOUR, i);
                 }
             } else {
                 final int current = getCurrentMinute();
-                for (int i = 0; i < MINUTES_IN_CIRCLE; i += MINUTE_INCREMENT) {
-                    virtualViewIds.add(makeId(TYPE_MINUTE, i));
+                final int increment = getMinuteIncrement();
+                for (int i = 0; i < MINUTES_IN_CIRCLE; i += increment) {
+                    outIds[count++] = makeId(TYPE_MINUTE, i);
 
                     // If the current minute falls between two increments,
                     // insert an extra node for it.
-                    if (current > i && current < i + MINUTE_INCREMENT) {
-                        virtualViewIds.add(makeId(TYPE_MINUTE, current));
+                    if (current > i && current < i + increment) {
+                        outIds[count++] = makeId(TYPE_MINUTE, current);
                     }
                 }
             }
+            return count;
         }
 
         @Override
@@ -1295,10 +2396,15 @@ public class RadialTimePickerView extends View {
         @Override
         protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
             node.setClassName(getClass().getName());
-            node.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_CLICK);
 
             final int type = getTypeFromId(virtualViewId);
             final int value = getValueFromId(virtualViewId);
+            final boolean selectable = isVirtualViewSelectable(type, value);
+            node.setEnabled(selectable);
+            if (selectable) {
+                node.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_CLICK);
+            }
+
             final CharSequence description = getVirtualViewDescription(type, value);
             node.setContentDescription(description);
 
@@ -1323,8 +2429,9 @@ public class RadialTimePickerView extends View {
                 }
             } else if (type == TYPE_MINUTE) {
                 final int current = getCurrentMinute();
-                final int snapValue = value - (value % MINUTE_INCREMENT);
-                final int nextValue = snapValue + MINUTE_INCREMENT;
+                final int increment = getMinuteIncrement();
+                final int snapValue = value - (value % increment);
+                final int nextValue = snapValue + increment;
                 if (value < current && nextValue > current) {
                     // The current value is between two snap values.
                     return makeId(type, current);
@@ -1341,8 +2448,12 @@ public class RadialTimePickerView extends View {
             if (action == AccessibilityNodeInfo.ACTION_CLICK) {
                 final int type = getTypeFromId(virtualViewId);
                 final int value = getValueFromId(virtualViewId);
+                if (!isVirtualViewSelectable(type, value)) {
+                    return false;
+                }
                 if (type == TYPE_HOUR) {
-                    final int hour = mIs24HourMode ? value : hour12To24(value, mAmOrPm);
+                    final int hour = mIs24HourMode
+                            ? value : ClockFaceGeometry.hour12To24(value, mAmOrPm);
                     setCurrentHour(hour);
                     return true;
                 } else if (type == TYPE_MINUTE) {
@@ -1353,28 +2464,6 @@ public class RadialTimePickerView extends View {
             return false;
         }
 
-        private int hour12To24(int hour12, int amOrPm) {
-            int hour24 = hour12;
-            if (hour12 == 12) {
-                if (amOrPm == AM) {
-                    hour24 = 0;
-                }
-            } else if (amOrPm == PM) {
-                hour24 += 12;
-            }
-            return hour24;
-        }
-
-        private int hour24To12(int hour24) {
-            if (hour24 == 0) {
-                return 12;
-            } else if (hour24 > 12) {
-                return hour24 - 12;
-            } else {
-                return hour24;
-            }
-        }
-
         private void getBoundsForVirtualView(int virtualViewId, Rect bounds) {
             final float radius;
             final int type = getTypeFromId(virtualViewId);
@@ -1403,28 +2492,54 @@ public class RadialTimePickerView extends View {
                 radius = 0;
             }
 
-            final double radians = Math.toRadians(degrees);
-            final float xCenter = mXCenter + centerRadius * (float) Math.sin(radians);
-            final float yCenter = mYCenter - centerRadius * (float) Math.cos(radians);
+            final float xCenter = mXCenter + centerRadius * ClockFaceGeometry.sinDeg(degrees);
+            final float yCenter = mYCenter - centerRadius * ClockFaceGeometry.cosDeg(degrees);
 
             bounds.set((int) (xCenter - radius), (int) (yCenter - radius),
                     (int) (xCenter + radius), (int) (yCenter + radius));
         }
 
         private CharSequence getVirtualViewDescription(int type, int value) {
-            final CharSequence description;
-            if (type == TYPE_HOUR || type == TYPE_MINUTE) {
-                description = Integer.toString(value);
+            final String[] descriptions;
+            if (type == TYPE_HOUR) {
+                descriptions = mHourDescriptions;
+            } else if (type == TYPE_MINUTE) {
+                descriptions = mMinuteDescriptions;
             } else {
-                description = null;
+                return null;
+            }
+
+            // Numbers are formatted like the numerals, using the default locale.
+            final Locale locale = Locale.getDefault();
+            if (!locale.equals(mDescriptionLocale)) {
+                Arrays.fill(mHourDescriptions, null);
+                Arrays.fill(mMinuteDescriptions, null);
+                mDescriptionLocale = locale;
+            }
+            if (descriptions[value] == null) {
+                descriptions[value] = DigitFormatter.getInstance(locale).format(value);
             }
-            return description;
+            return descriptions[value];
+        }
+
+        /**
+         * @param value the hour as exposed, i.e. in 12-hour time when not in
+         *              24-hour mode, or the minute
+         */
+        private boolean isVirtualViewSelectable(int type, int value) {
+            if (type == TYPE_HOUR) {
+                return isHourSelectable(
+                        mIs24HourMode ? value : ClockFaceGeometry.hour12To24(value, mAmOrPm));
+            } else if (type == TYPE_MINUTE) {
+                return isMinuteSelectable(value);
+            }
+            return false;
         }
 
         private boolean isVirtualViewSelected(int type, int value) {
             final boolean selected;
             if (type == TYPE_HOUR) {
-                selected = getCurrentHour() == value;
+                selected = getHourNodeValue(getCurrentHour()) == value;
             } else if (type == TYPE_MINUTE) {
                 selected = getCurrentMinute() == value;
             } else {
@@ -1433,6 +2548,82 @@ public class RadialTimePickerView extends View {
             return selected;
         }
 
+        /**
+         * Returns the increment in which minutes are exposed and adjusted,
+         * which is the minute step when it's coarser than five minutes.
+         */
+        private int getMinuteIncrement() {
+            return Math.max(MINUTE_INCREMENT, mMinuteSnap.getStepMinutes());
+        }
+
+        /**
+         * @param hour the hour in 24-hour time
+         * @return the value of the hour's node, i.e. in 12-hour time when not
+         *         in 24-hour mode
+         */
+        private int getHourNodeValue(int hour) {
+            return mIs24HourMode ? hour : ClockFaceGeometry.hour24To12(hour);
+        }
+
+        /**
+         * Invalidates the nodes of the previously and newly selected hour,
+         * rather than the whole tree.
+         *
+         * @param previousHour the previous hour in 24-hour time
+         * @param hour the new hour in 24-hour time
+         */
+        void invalidateHourSelection(int previousHour, int hour) {
+            final int previousValue = getHourNodeValue(previousHour);
+            final int value = getHourNodeValue(hour);
+            if (!mShowHours || previousValue == value) {
+                return;
+            }
+            invalidateVirtualView(makeId(TYPE_HOUR, previousValue));
+            invalidateVirtualView(makeId(TYPE_HOUR, value));
+        }
+
+        /**
+         * Invalidates the nodes of the previously and newly selected minute.
+         * Minutes between the exposed increments have a node only while
+         * selected, so selecting or leaving one changes the tree structure.
+         */
+        void invalidateMinuteSelection(int previousMinute, int minute) {
+            if (mShowHours || previousMinute == minute) {
+                return;
+            }
+            final int increment = getMinuteIncrement();
+            if (previousMinute % increment != 0 || minute % increment != 0) {
+                invalidateRoot();
+                return;
+            }
+            invalidateVirtualView(makeId(TYPE_MINUTE, previousMinute));
+            invalidateVirtualView(makeId(TYPE_MINUTE, minute));
+        }
+
+        /**
+         * Invalidates the node of an hour shown on the dial, if the hours
+         * are showing.
+         *
+         * @param value the hour as exposed, i.e. in 12-hour time when not in
+         *              24-hour mode
+         */
+        void invalidateHourNode(int value) {
+            if (mShowHours) {
+                invalidateVirtualView(makeId(TYPE_HOUR, value));
+            }
+        }
+
+        /**
+         * Invalidates the node of a minute, if the minutes are showing and
+         * the minute has a node.
+         */
+        void invalidateMinuteNode(int minute) {
+            if (!mShowHours && (minute % getMinuteIncrement() == 0
+                    || minute == getCurrentMinute())) {
+                invalidateVirtualView(makeId(TYPE_MINUTE, minute));
+            }
+        }
+
         private int makeId(int type, int value) {
             return type << SHIFT_TYPE | value << SHIFT_VALUE;
         }
@@ -0,0 +1,47 @@
+package com.example.timepicker.timepicker;
+
+import android.view.View;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Receives per-frame rendering metrics from the picker views.
+ * <p>
+ * Metrics are only collected while a listener is set, so leaving it unset
+ * keeps the drawing path free of timing calls.
+ *
+ * @see TimePicker#setRenderMetricsListener(RenderMetricsListener)
+ * @see RadialTimePickerView#setRenderMetricsListener(RenderMetricsListener)
+ * @see NumberPicker#setRenderMetricsListener(RenderMetricsListener)
+ */
+public interface RenderMetricsListener {
+    /** The frame was requested through the public API, e.g. a value setter. */
+    int INVALIDATION_CAUSE_API = 0;
+
+    /** The frame was requested while handling a touch event. */
+    int INVALIDATION_CAUSE_TOUCH = 1;
+
+    /** The frame was requested by a running animation or scroller. */
+    int INVALIDATION_CAUSE_ANIMATION = 2;
+
+    /** @hide */
+    @IntDef({INVALIDATION_CAUSE_API, INVALIDATION_CAUSE_TOUCH, INVALIDATION_CAUSE_ANIMATION})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface InvalidationCause {}
+
+    /**
+     * Called on the UI thread after a view finished drawing a frame.
+     *
+     * @param view the view that was drawn
+     * @param drawTimeNanos wall time spent in {@code onDraw}, in nanoseconds
+     * @param textOps number of text draw operations issued
+     * @param clipOps number of clip or mask operations issued
+     * @param cause the cause of the most recent invalidation before this
+     *              frame
+     */
+    void onFrameRendered(View view, long drawTimeNanos, int textOps, int clipOps,
+            @InvalidationCause int cause);
+}
@@ -36,6 +36,8 @@ import android.widget.TextView;
 import androidx.core.math.MathUtils;
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.DigitFormatter;
+import com.example.timepicker.clockface.TimeAvailability;
 
 
 /**
@@ -63,6 +65,7 @@ public class TextInputTimePickerView extends RelativeLayout {
     private boolean mIs24Hour;
     private boolean mHourFormatStartsAtZero;
     private OnValueTypedListener mListener;
+    private TimeAvailability mAvailability;
 
     private boolean mErrorShowing;
 
@@ -179,13 +182,39 @@ public class TextInputTimePickerView extends RelativeLayout {
                 new InputFilter.LengthFilter(maxCharLength)});
     }
 
+    /**
+     * Sets the availability typed times are validated against, or
+     * {@code null} to accept any time.
+     */
+    void setAvailability(TimeAvailability availability) {
+        mAvailability = availability;
+        if (mErrorShowing) {
+            validateInput();
+        }
+    }
+
     boolean validateInput() {
         final boolean inputValid = parseAndSetHourInternal(mHourEditText.getText().toString())
-                && parseAndSetMinuteInternal(mMinuteEditText.getText().toString());
+                && parseAndSetMinuteInternal(mMinuteEditText.getText().toString())
+                && isTypedTimeAvailable();
         setError(!inputValid);
         return inputValid;
     }
 
+    /**
+     * Returns whether the typed time is available. Must only be called after
+     * both fields have been parsed successfully.
+     */
+    private boolean isTypedTimeAvailable() {
+        if (mAvailability == null) {
+            return true;
+        }
+        final int hourOfDay = getHourOfDayFromLocalizedHour(
+                Integer.parseInt(mHourEditText.getText().toString()));
+        final int minute = Integer.parseInt(mMinuteEditText.getText().toString());
+        return mAvailability.isAvailable(hourOfDay, minute);
+    }
+
     void updateSeparator(String separatorText) {
         mInputSeparatorView.setText(separatorText);
     }
@@ -206,8 +235,6 @@ public class TextInputTimePickerView extends RelativeLayout {
      */
     void updateTextInputValues(int localizedHour, int minute, int amOrPm, boolean is24Hour,
                                boolean hourFormatStartsAtZero) {
-        final String format = "%d";
-
         mIs24Hour = is24Hour;
         mHourFormatStartsAtZero = hourFormatStartsAtZero;
 
@@ -219,8 +246,9 @@ public class TextInputTimePickerView extends RelativeLayout {
             mAmPmSpinner.setSelection(1);
         }
 
-        mHourEditText.setText(String.format(format, localizedHour));
-        mMinuteEditText.setText(String.format(format, minute));
+        final DigitFormatter formatter = DigitFormatter.getInstance();
+        mHourEditText.setText(formatter.format(localizedHour));
+        mMinuteEditText.setText(formatter.format(minute));
 
         if (mErrorShowing) {
             validateInput();
@@ -18,8 +18,11 @@ package com.example.timepicker.timepicker;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
@@ -34,10 +37,13 @@ import android.widget.FrameLayout;
 import androidx.annotation.IntDef;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.math.MathUtils;
 
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.SnapTable;
+import com.example.timepicker.clockface.TimeAvailability;
 import com.example.timepicker.timepicker.util.Utils;
 
 import java.lang.annotation.Retention;
@@ -45,6 +51,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.text.DateFormatSymbols;
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 // import android.util.MathUtils;
 
@@ -91,6 +98,16 @@ public class TimePicker extends FrameLayout {
 
     private TimePickerDelegate mDelegate;
 
+    /** Incremented whenever the availability is replaced. */
+    private int mAvailabilityGeneration;
+
+    /**
+     * Applies availabilities built in the background. Unlike {@link #post},
+     * this works while the view is not attached, e.g. while a dialog holding
+     * it is being set up.
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
     @TimePickerMode
     private int mMode;
 
@@ -304,6 +321,148 @@ public class TimePicker extends FrameLayout {
         mDelegate.setOnTimeChangedListener(onTimeChangedListener);
     }
 
+    /**
+     * Sets the number of minutes between selectable minutes, e.g. 15 to pick
+     * quarter-hour slots. Touch, accessibility and spinner input as well as
+     * {@link #setMinute(int)} snap to the nearest multiple of the step within
+     * the hour, and the current minute is snapped the same way. Minutes typed
+     * on the keyboard of the clock mode are not snapped.
+     *
+     * @param step one of 1, 5, 10, 15, 20 or 30
+     * @throws IllegalArgumentException if the step is not supported
+     * @see #getMinuteStep()
+     */
+    public void setMinuteStep(@IntRange(from = 1, to = 30) int step) {
+        mDelegate.setMinuteStep(step);
+    }
+
+    /**
+     * @return the number of minutes between selectable minutes
+     * @see #setMinuteStep(int)
+     */
+    public int getMinuteStep() {
+        return mDelegate.getMinuteStep();
+    }
+
+    /**
+     * Restricts the times the user can pick, e.g. to the free slots of a
+     * booking calendar. Unavailable numerals and spinner values are dimmed
+     * and can't be selected by touch or accessibility actions, and typed
+     * times outside the availability are reported as invalid.
+     * {@link #setHour(int)} and {@link #setMinute(int)} are not restricted.
+     * <p>
+     * The picker reads the availability while drawing and handling input
+     * but doesn't observe it, so call this method again after modifying it.
+     *
+     * @param availability the selectable times, or {@code null} to allow
+     *                     any time
+     * @see #getAvailability()
+     */
+    public void setAvailability(@Nullable TimeAvailability availability) {
+        mAvailabilityGeneration++;
+        mDelegate.setAvailability(availability);
+    }
+
+    /**
+     * Builds the availability on the given executor and applies it on the
+     * main thread once done, so large schedules don't stall the UI. A later
+     * call to either {@code setAvailability} method supersedes a pending
+     * build.
+     * <p>
+     * The builder must not be modified until the availability has been
+     * applied.
+     *
+     * @param builder the schedule to build
+     * @param executor the executor to build on, typically a background one
+     * @see #setAvailability(TimeAvailability)
+     */
+    public void setAvailability(@NonNull final TimeAvailability.Builder builder,
+            @NonNull Executor executor) {
+        final int generation = ++mAvailabilityGeneration;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final TimeAvailability availability = builder.build();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mAvailabilityGeneration) {
+                            mDelegate.setAvailability(availability);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Marks a range of minutes of the current availability as available or
+     * unavailable. Only the numerals, spinner values and accessibility nodes
+     * of the hours that changed are refreshed. If no availability is set, a
+     * new one with all other minutes available is created.
+     *
+     * @param fromMinuteOfDay the first minute of the range, inclusive
+     * @param toMinuteOfDay the end of the range, exclusive, up to
+     *                      {@link TimeAvailability#MINUTES_PER_DAY}
+     * @param available whether the minutes can be selected
+     * @throws IndexOutOfBoundsException if the range is not within the day
+     * @see TimeAvailability#update(int, int, boolean)
+     */
+    public void updateAvailability(int fromMinuteOfDay, int toMinuteOfDay, boolean available) {
+        final TimeAvailability availability = mDelegate.getAvailability();
+        if (availability == null) {
+            setAvailability(new TimeAvailability()
+                    .setAvailable(fromMinuteOfDay, toMinuteOfDay, available));
+            return;
+        }
+        mDelegate.onAvailabilityChanged(
+                availability.update(fromMinuteOfDay, toMinuteOfDay, available));
+    }
+
+    /**
+     * @return the selectable times, or {@code null} if any time can be
+     *         selected
+     * @see #setAvailability(TimeAvailability)
+     */
+    @Nullable
+    public TimeAvailability getAvailability() {
+        return mDelegate.getAvailability();
+    }
+
+    /**
+     * Returns the selectable time closest to the given time, taking the
+     * availability and the minute step into account. Times on both sides of
+     * midnight are considered; ties go to the later time.
+     *
+     * @param hour the hour in the range (0-23)
+     * @param minute the minute in the range (0-59)
+     * @return the closest selectable time as minutes since midnight, or -1
+     *         if no time can be selected
+     * @see TimeAvailability#getNearestSelectable(int, int)
+     */
+    public int getNearestSelectableTime(@IntRange(from = 0, to = 23) int hour,
+            @IntRange(from = 0, to = 59) int minute) {
+        final int minuteOfDay = hour * TimeAvailability.MINUTES_PER_HOUR + minute;
+        final TimeAvailability availability = mDelegate.getAvailability();
+        if (availability != null) {
+            return availability.getNearestSelectable(minuteOfDay, getMinuteStep());
+        }
+
+        // Round to the closest step, which may be in the next hour.
+        final int step = getMinuteStep();
+        return (minuteOfDay + step / 2) / step * step % TimeAvailability.MINUTES_PER_DAY;
+    }
+
+    /**
+     * Sets a listener to receive per-frame rendering metrics from the clock
+     * or spinner views of this picker.
+     *
+     * @param listener the listener, or {@code null} to stop collecting metrics
+     */
+    public void setRenderMetricsListener(@Nullable RenderMetricsListener listener) {
+        mDelegate.setRenderMetricsListener(listener);
+    }
+
     @Override
     public void setEnabled(boolean enabled) {
         super.setEnabled(enabled);
@@ -330,6 +489,12 @@ public class TimePicker extends FrameLayout {
         return mDelegate.validateInput();
     }
 
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        mDelegate.onConfigurationChanged(newConfig);
+    }
+
     @Override
     protected Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
@@ -397,6 +562,16 @@ public class TimePicker extends FrameLayout {
 
         int getMinute();
 
+        void setMinuteStep(int step);
+
+        int getMinuteStep();
+
+        void setAvailability(TimeAvailability availability);
+
+        TimeAvailability getAvailability();
+
+        void onAvailabilityChanged(int changedHours);
+
         void setDate(long date);
 
         long getDate();
@@ -411,6 +586,8 @@ public class TimePicker extends FrameLayout {
 
         void setAutoFillChangeListener(OnTimeChangedListener autoFillChangeListener);
 
+        void setRenderMetricsListener(RenderMetricsListener renderMetricsListener);
+
         void setEnabled(boolean enabled);
 
         boolean isEnabled();
@@ -425,6 +602,8 @@ public class TimePicker extends FrameLayout {
 
         void onPopulateAccessibilityEvent(AccessibilityEvent event);
 
+        void onConfigurationChanged(Configuration newConfig);
+
         /**
          * @hide
          */
@@ -481,6 +660,9 @@ public class TimePicker extends FrameLayout {
         protected OnTimeChangedListener mOnTimeChangedListener;
         protected OnTimeChangedListener mAutoFillChangeListener;
 
+        protected SnapTable mMinuteSnap = SnapTable.forMinuteStep(1);
+        protected TimeAvailability mAvailability;
+
         public AbstractTimePickerDelegate(@NonNull TimePicker delegator, @NonNull Context context) {
             mDelegator = delegator;
             mContext = context;
@@ -497,6 +679,21 @@ public class TimePicker extends FrameLayout {
             mAutoFillChangeListener = callback;
         }
 
+        @Override
+        public int getMinuteStep() {
+            return mMinuteSnap.getStepMinutes();
+        }
+
+        @Override
+        public TimeAvailability getAvailability() {
+            return mAvailability;
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // Labels formatted by views follow the default locale by themselves.
+        }
+
         @Override
         public void setDate(long date) {
             Calendar cal = Calendar.getInstance(mLocale);
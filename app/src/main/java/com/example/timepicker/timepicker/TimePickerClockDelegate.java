@@ -50,6 +50,8 @@ import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
 
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.SnapTable;
+import com.example.timepicker.clockface.TimeAvailability;
 import com.example.timepicker.timepicker.util.DateFormatFix;
 import com.example.timepicker.timepicker.util.StateSet;
 import com.example.timepicker.timepicker.util.Utils;
@@ -567,7 +569,7 @@ class TimePickerClockDelegate extends TimePicker.AbstractTimePickerDelegate {
      */
     @Override
     public void setMinute(int minute) {
-        setMinuteInternal(minute, FROM_EXTERNAL_API);
+        setMinuteInternal(mMinuteSnap.snapMinute(minute), FROM_EXTERNAL_API);
     }
 
     private void setMinuteInternal(int minute, @ChangeSource int source) {
@@ -639,6 +641,38 @@ class TimePickerClockDelegate extends TimePicker.AbstractTimePickerDelegate {
         return mIsEnabled;
     }
 
+    @Override
+    public void setMinuteStep(int step) {
+        final SnapTable minuteSnap = SnapTable.forMinuteStep(step);
+        if (mMinuteSnap == minuteSnap) {
+            return;
+        }
+
+        mMinuteSnap = minuteSnap;
+        mRadialTimePickerView.setMinuteStep(step);
+        setMinuteInternal(minuteSnap.snapMinute(mCurrentMinute), FROM_EXTERNAL_API);
+    }
+
+    @Override
+    public void setAvailability(TimeAvailability availability) {
+        mAvailability = availability;
+        mRadialTimePickerView.setAvailability(availability);
+        mTextInputPickerView.setAvailability(availability);
+    }
+
+    @Override
+    public void onAvailabilityChanged(int changedHours) {
+        mRadialTimePickerView.onAvailabilityChanged(changedHours);
+        if ((changedHours & 1 << mCurrentHour) != 0) {
+            mTextInputPickerView.setAvailability(mAvailability);
+        }
+    }
+
+    @Override
+    public void setRenderMetricsListener(RenderMetricsListener renderMetricsListener) {
+        mRadialTimePickerView.setRenderMetricsListener(renderMetricsListener);
+    }
+
     @Override
     public int getBaseline() {
         // does not support baseline alignment
@@ -918,6 +952,16 @@ class TimePickerClockDelegate extends TimePicker.AbstractTimePickerDelegate {
                     }
                     final boolean isTransition = mAllowAutoAdvance && autoAdvance;
                     setHourInternal(newValue, FROM_RADIAL_PICKER, !isTransition);
+
+                    // Move the minute to the closest free slot of the new hour.
+                    if (mAvailability != null) {
+                        final int minute = mAvailability.getNearestSelectableMinute(
+                                newValue, getMinute(), getMinuteStep());
+                        if (minute >= 0 && minute != getMinute()) {
+                            setMinuteInternal(minute, FROM_EXTERNAL_API);
+                            valueChanged = true;
+                        }
+                    }
                     if (isTransition) {
                         setCurrentItemShowing(MINUTE_INDEX, true, false);
 
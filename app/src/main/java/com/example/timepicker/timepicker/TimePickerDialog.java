@@ -32,6 +32,9 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.TimeAvailability;
+
+import java.util.concurrent.Executor;
 
 
 /**
@@ -138,6 +141,39 @@ public class TimePickerDialog extends AlertDialog implements OnClickListener,
         mTimePicker.setOnTimeChangedListener(this);
     }
 
+    /**
+     * Restricts the times the user can pick.
+     *
+     * @param availability the selectable times, or {@code null} to allow
+     *                     any time
+     * @see TimePicker#setAvailability(TimeAvailability)
+     */
+    public void setAvailability(TimeAvailability availability) {
+        mTimePicker.setAvailability(availability);
+    }
+
+    /**
+     * Restricts the times the user can pick once the schedule has been
+     * built on the given executor. The dialog can be shown right away.
+     *
+     * @param builder the schedule to build
+     * @param executor the executor to build on, typically a background one
+     * @see TimePicker#setAvailability(TimeAvailability.Builder, Executor)
+     */
+    public void setAvailability(TimeAvailability.Builder builder, Executor executor) {
+        mTimePicker.setAvailability(builder, executor);
+    }
+
+    /**
+     * Marks a range of minutes as available or unavailable while the dialog
+     * is showing.
+     *
+     * @see TimePicker#updateAvailability(int, int, boolean)
+     */
+    public void updateAvailability(int fromMinuteOfDay, int toMinuteOfDay, boolean available) {
+        mTimePicker.updateAvailability(fromMinuteOfDay, toMinuteOfDay, available);
+    }
+
     /**
      * @return the time picker displayed in the dialog
      * @hide For testing only.
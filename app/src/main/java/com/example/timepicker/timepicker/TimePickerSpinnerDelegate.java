@@ -20,6 +20,7 @@ import static androidx.core.view.ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_AUTO;
 import static androidx.core.view.ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_YES;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.os.Parcelable;
 import android.text.format.DateUtils;
@@ -39,6 +40,8 @@ import androidx.core.view.ViewCompat;
 
 
 import com.example.timepicker.R;
+import com.example.timepicker.clockface.SnapTable;
+import com.example.timepicker.clockface.TimeAvailability;
 import com.example.timepicker.timepicker.util.DateFormatFix;
 
 import java.util.Calendar;
@@ -75,6 +78,25 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
     private boolean mIs24HourView;
     private boolean mIsAm;
 
+    /** Hours with at least one available minute step. */
+    private final NumberPicker.ValueFilter mHourFilter = new NumberPicker.ValueFilter() {
+        @Override
+        public boolean isSelectable(int value) {
+            // The 'k' format shows midnight as 24.
+            final int hour = getHourForSpinnerValue(value) % 24;
+            return mAvailability.isHourAvailable(hour, mMinuteSnap.getStepMinutes());
+        }
+    };
+
+    /** Available minute steps of the current hour. */
+    private final NumberPicker.ValueFilter mMinuteFilter = new NumberPicker.ValueFilter() {
+        @Override
+        public boolean isSelectable(int value) {
+            return mAvailability.isAvailable(getHour() % 24,
+                    value * mMinuteSnap.getStepMinutes());
+        }
+    };
+
     public TimePickerSpinnerDelegate(TimePicker delegator, Context context, AttributeSet attrs,
             int defStyleAttr, int defStyleRes) {
         super(delegator, context);
@@ -96,15 +118,16 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
             public void onValueChange(NumberPicker spinner, int oldVal, int newVal) {
                 updateInputState();
                 if (!is24Hour()) {
-                    if ((oldVal == HOURS_IN_HALF_DAY - 1 && newVal == HOURS_IN_HALF_DAY) ||
-                            (oldVal == HOURS_IN_HALF_DAY && newVal == HOURS_IN_HALF_DAY - 1)) {
+                    if (getBoundaryCrossing(spinner, oldVal, newVal, HOURS_IN_HALF_DAY) != 0) {
                         mIsAm = !mIsAm;
                         updateAmPmControl();
                     }
                 }
+                ensureSelectableMinute();
                 onTimeChanged();
             }
         });
+        mHourSpinner.setValueChangeDelivery(NumberPicker.VALUE_CHANGE_DELIVERY_PER_FRAME);
         mHourSpinnerInput = mHourSpinner.findViewById(R.id.numberpicker_input);
         mHourSpinnerInput.setImeOptions(EditorInfo.IME_ACTION_NEXT);
 
@@ -123,16 +146,16 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
         mMinuteSpinner.setOnValueChangedListener(new NumberPicker.OnValueChangeListener() {
             public void onValueChange(NumberPicker spinner, int oldVal, int newVal) {
                 updateInputState();
-                int minValue = mMinuteSpinner.getMinValue();
-                int maxValue = mMinuteSpinner.getMaxValue();
-                if (oldVal == maxValue && newVal == minValue) {
+                final int carry = getBoundaryCrossing(spinner, oldVal, newVal,
+                        mMinuteSpinner.getMinValue());
+                if (carry > 0) {
                     int newHour = mHourSpinner.getValue() + 1;
                     if (!is24Hour() && newHour == HOURS_IN_HALF_DAY) {
                         mIsAm = !mIsAm;
                         updateAmPmControl();
                     }
                     mHourSpinner.setValue(newHour);
-                } else if (oldVal == minValue && newVal == maxValue) {
+                } else if (carry < 0) {
                     int newHour = mHourSpinner.getValue() - 1;
                     if (!is24Hour() && newHour == HOURS_IN_HALF_DAY - 1) {
                         mIsAm = !mIsAm;
@@ -143,6 +166,7 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
                 onTimeChanged();
             }
         });
+        mMinuteSpinner.setValueChangeDelivery(NumberPicker.VALUE_CHANGE_DELIVERY_PER_FRAME);
         mMinuteSpinnerInput = mMinuteSpinner.findViewById(R.id.numberpicker_input);
         mMinuteSpinnerInput.setImeOptions(EditorInfo.IME_ACTION_NEXT);
 
@@ -160,6 +184,7 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
                     button.requestFocus();
                     mIsAm = !mIsAm;
                     updateAmPmControl();
+                    ensureSelectableMinute();
                     onTimeChanged();
                 }
             });
@@ -175,6 +200,7 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
                     picker.requestFocus();
                     mIsAm = !mIsAm;
                     updateAmPmControl();
+                    ensureSelectableMinute();
                     onTimeChanged();
                 }
             });
@@ -231,10 +257,6 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
         }*/
     }
 
-    @Override
-    public boolean validateInput() {
-        return true;
-    }
 
     private void getHourFormatData() {
         final String bestDateTimePattern = DateFormatFix.getBestDateTimePattern(mContext, mLocale,
@@ -327,28 +349,124 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
 
     @Override
     public int getHour() {
-        int currentHour = mHourSpinner.getValue();
+        return getHourForSpinnerValue(mHourSpinner.getValue());
+    }
+
+    /**
+     * Converts a value of the hour spinner to an hour in 24-hour time, using
+     * the current AM/PM state.
+     */
+    private int getHourForSpinnerValue(int value) {
         if (is24Hour()) {
-            return currentHour;
+            return value;
         } else if (mIsAm) {
-            return currentHour % HOURS_IN_HALF_DAY;
+            return value % HOURS_IN_HALF_DAY;
         } else {
-            return (currentHour % HOURS_IN_HALF_DAY) + HOURS_IN_HALF_DAY;
+            return (value % HOURS_IN_HALF_DAY) + HOURS_IN_HALF_DAY;
         }
     }
 
     @Override
     public void setMinute(int minute) {
-        if (minute == getMinute()) {
+        final int snappedMinute = mMinuteSnap.snapMinute(minute);
+        if (snappedMinute == getMinute()) {
             return;
         }
-        mMinuteSpinner.setValue(minute);
+        mMinuteSpinner.setValue(snappedMinute / mMinuteSnap.getStepMinutes());
         onTimeChanged();
     }
 
     @Override
     public int getMinute() {
-        return mMinuteSpinner.getValue();
+        return mMinuteSpinner.getValue() * mMinuteSnap.getStepMinutes();
+    }
+
+    @Override
+    public void setMinuteStep(int step) {
+        final SnapTable minuteSnap = SnapTable.forMinuteStep(step);
+        if (mMinuteSnap == minuteSnap) {
+            return;
+        }
+
+        // Cache the current minute BEFORE the spinner range changes.
+        final int minute = getMinute();
+        mMinuteSnap = minuteSnap;
+
+        updateMinuteDisplayedValues();
+
+        final int snappedMinute = minuteSnap.snapMinute(minute);
+        mMinuteSpinner.setValue(snappedMinute / step);
+        if (snappedMinute != minute) {
+            onTimeChanged();
+        }
+        mHourSpinner.notifyValueFilterChanged();
+    }
+
+    /**
+     * Sets the range and labels of the minute spinner for the current step.
+     * The spinner holds step indices, labelled with their minutes.
+     */
+    private void updateMinuteDisplayedValues() {
+        final int step = mMinuteSnap.getStepMinutes();
+        final int count = 60 / step;
+        String[] displayedValues = null;
+        if (step > 1) {
+            final NumberPicker.Formatter formatter = NumberPicker.getTwoDigitFormatter();
+            displayedValues = new String[count];
+            for (int i = 0; i < count; i++) {
+                displayedValues[i] = formatter.format(i * step);
+            }
+        }
+        // Order is important here.
+        mMinuteSpinner.setDisplayedValues(null);
+        mMinuteSpinner.setMaxValue(count - 1);
+        mMinuteSpinner.setDisplayedValues(displayedValues);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Stepped minute labels are formatted once, in the locale's digits.
+        if (mMinuteSnap.getStepMinutes() > 1) {
+            updateMinuteDisplayedValues();
+        }
+    }
+
+    @Override
+    public void setAvailability(TimeAvailability availability) {
+        mAvailability = availability;
+        mHourSpinner.setValueFilter(availability != null ? mHourFilter : null);
+        mMinuteSpinner.setValueFilter(availability != null ? mMinuteFilter : null);
+    }
+
+    @Override
+    public void onAvailabilityChanged(int changedHours) {
+        for (int hour = 0; hour < 24; hour++) {
+            if ((changedHours & 1 << hour) == 0) {
+                continue;
+            }
+
+            // Map the hour to the spinner value, if it's in the current range.
+            int value;
+            if (is24Hour()) {
+                value = hour;
+            } else if ((hour < HOURS_IN_HALF_DAY) == mIsAm) {
+                value = hour % HOURS_IN_HALF_DAY;
+            } else {
+                continue;
+            }
+            if (value < mHourSpinner.getMinValue()) {
+                value += is24Hour() ? 24 : HOURS_IN_HALF_DAY;
+            }
+            mHourSpinner.invalidateValue(value);
+        }
+        if ((changedHours & 1 << getHour() % 24) != 0) {
+            mMinuteSpinner.notifyValueFilterChanged();
+        }
+    }
+
+    @Override
+    public boolean validateInput() {
+        return mAvailability == null || mAvailability.isAvailable(getHour(), getMinute());
     }
 
     public void setIs24Hour(boolean is24Hour) {
@@ -392,6 +510,15 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
         return mIsEnabled;
     }
 
+    @Override
+    public void setRenderMetricsListener(RenderMetricsListener renderMetricsListener) {
+        mHourSpinner.setRenderMetricsListener(renderMetricsListener);
+        mMinuteSpinner.setRenderMetricsListener(renderMetricsListener);
+        if (mAmPmSpinner != null) {
+            mAmPmSpinner.setRenderMetricsListener(renderMetricsListener);
+        }
+    }
+
     @Override
     public int getBaseline() {
         return mHourSpinner.getBaseline();
@@ -498,7 +625,59 @@ class TimePickerSpinnerDelegate extends TimePicker.AbstractTimePickerDelegate {
         mDelegator.sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
     }
 
+    /**
+     * Moves the minute to the closest free slot of the current hour after
+     * the hour or AM/PM changed.
+     */
+    private void ensureSelectableMinute() {
+        if (mAvailability == null) {
+            return;
+        }
+        final int step = mMinuteSnap.getStepMinutes();
+        final int minute = mAvailability.getNearestSelectableMinute(
+                getHour() % 24, getMinute(), step);
+        if (minute >= 0 && minute != getMinute()) {
+            mMinuteSpinner.setValue(minute / step);
+        }
+    }
+
+    /**
+     * Returns whether a change of a spinner passed the step from
+     * {@code boundary - 1} to {@code boundary}, wrapping around at the ends.
+     * Spinners report changes once per frame while scrolling, so a change
+     * can span several values; like the spinner, this assumes that a change
+     * of more than half the range wrapped around.
+     *
+     * @return 1 if the step was passed upwards, -1 if downwards, otherwise 0
+     */
+    private static int getBoundaryCrossing(NumberPicker spinner, int oldVal, int newVal,
+            int boundary) {
+        final int minValue = spinner.getMinValue();
+        final int maxValue = spinner.getMaxValue();
+        if (oldVal == newVal || boundary < minValue || boundary > maxValue) {
+            return 0;
+        }
+
+        final int range = maxValue - minValue + 1;
+        final int delta = newVal - oldVal;
+        final boolean wrapped = Math.abs(delta) > (maxValue - minValue) / 2;
+        if ((delta > 0) != wrapped) {
+            final int steps = ((delta % range) + range) % range;
+            final int stepsToBoundary = ((boundary - oldVal) % range + range) % range;
+            return stepsToBoundary >= 1 && stepsToBoundary <= steps ? 1 : 0;
+        } else {
+            final int steps = ((-delta % range) + range) % range;
+            final int stepsToBoundary = ((oldVal - boundary + 1) % range + range) % range;
+            return stepsToBoundary >= 1 && stepsToBoundary <= steps ? -1 : 0;
+        }
+    }
+
     private void onTimeChanged() {
+        if (mAvailability != null) {
+            // Selectable minutes depend on the hour, and hours on AM/PM.
+            mHourSpinner.notifyValueFilterChanged();
+            mMinuteSpinner.notifyValueFilterChanged();
+        }
         mDelegator.sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
         if (mOnTimeChangedListener != null) {
             mOnTimeChangedListener.onTimeChanged(mDelegator, getHour(),
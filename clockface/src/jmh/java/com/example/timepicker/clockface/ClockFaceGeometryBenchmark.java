@@ -0,0 +1,92 @@
+package com.example.timepicker.clockface;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-call cost of the dial math run for every touch event and frame.
+ * Each invocation processes a batch of {@link #SAMPLES} points around the
+ * dial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClockFaceGeometryBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private final float[] mDeltaX = new float[SAMPLES];
+    private final float[] mDeltaY = new float[SAMPLES];
+    private final float[] mDegrees = new float[SAMPLES];
+    private final SnapTable mMinuteSnap = SnapTable.forMinuteStep(1);
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final double radians = 2 * Math.PI * i / SAMPLES;
+            final double radius = 100 + i % 50;
+            mDeltaX[i] = (float) (radius * Math.sin(radians));
+            mDeltaY[i] = (float) (-radius * Math.cos(radians));
+            mDegrees[i] = 360f * i / SAMPLES;
+        }
+    }
+
+    /** Angle and snapped minute of a touch, as computed on every MOVE event. */
+    @Benchmark
+    public void snapTouchedMinute(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            final int degrees = ClockFaceGeometry.getDegreesFromDelta(mDeltaX[i], mDeltaY[i]);
+            bh.consume(mMinuteSnap.snap(degrees));
+        }
+    }
+
+    /** Angle and snapped hour of a touch. */
+    @Benchmark
+    public void snapTouchedHour(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            final int degrees = ClockFaceGeometry.getDegreesFromDelta(mDeltaX[i], mDeltaY[i]);
+            bh.consume(ClockFaceGeometry.snapOnly30s(degrees, 0) % 360);
+        }
+    }
+
+    /** Selector position from the sine and cosine tables. */
+    @Benchmark
+    public void selectorPositionFromTables(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            final float degrees = mDegrees[i];
+            bh.consume(ClockFaceGeometry.sinDeg(degrees));
+            bh.consume(ClockFaceGeometry.cosDeg(degrees));
+        }
+    }
+
+    /** Selector position from {@link Math}, for comparison. */
+    @Benchmark
+    public void selectorPositionFromMath(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            final double radians = Math.toRadians(mDegrees[i]);
+            bh.consume((float) Math.sin(radians));
+            bh.consume((float) Math.cos(radians));
+        }
+    }
+
+    /** Selector angle during the hours/minutes transition. */
+    @Benchmark
+    public void transitionAngle(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            bh.consume(ClockFaceGeometry.lerpDeg(mDegrees[i], mDegrees[SAMPLES - 1 - i], 0.5f));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.timepicker.clockface;
+
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DigitFormatter} against the formatting it replaced. Each
+ * invocation formats the 60 minutes of an hour, as a minute picker or the
+ * minutes dial does when it is set up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DigitFormatterBenchmark {
+    private static final int VALUES = 60;
+
+    @Param({"en-US", "ar-EG"})
+    public String mLanguageTag;
+
+    private Locale mDefaultLocale;
+    private Locale mLocale;
+    private StringBuilder mBuilder;
+    private Formatter mFormatter;
+    private final Object[] mArgs = new Object[1];
+
+    @Setup
+    public void setUp() {
+        mDefaultLocale = Locale.getDefault();
+        mLocale = Locale.forLanguageTag(mLanguageTag);
+        Locale.setDefault(mLocale);
+        mBuilder = new StringBuilder();
+        mFormatter = new Formatter(mBuilder, mLocale);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Locale.setDefault(mDefaultLocale);
+    }
+
+    /** {@code String.format}, as used by the views. */
+    @Benchmark
+    public void stringFormat(Blackhole bh) {
+        for (int value = 0; value < VALUES; value++) {
+            bh.consume(String.format(Locale.getDefault(), "%02d", value));
+        }
+    }
+
+    /** A reused {@link Formatter}, as NumberPicker's two-digit formatter did. */
+    @Benchmark
+    public void reusedFormatter(Blackhole bh) {
+        for (int value = 0; value < VALUES; value++) {
+            mArgs[0] = value;
+            mBuilder.setLength(0);
+            mFormatter.format("%02d", mArgs);
+            bh.consume(mFormatter.toString());
+        }
+    }
+
+    @Benchmark
+    public void digitFormatter(Blackhole bh) {
+        for (int value = 0; value < VALUES; value++) {
+            bh.consume(DigitFormatter.getInstance().formatTwoDigits(value));
+        }
+    }
+
+    /** Values outside the pre-built tables. */
+    @Benchmark
+    public void digitFormatterUntabled(Blackhole bh) {
+        for (int value = 0; value < VALUES; value++) {
+            bh.consume(DigitFormatter.getInstance().format(value + 1000, 5));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.timepicker.clockface;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Grid lookups against computing the angle of every touch point. Each
+ * invocation resolves {@link #SAMPLES} points along the ring of numerals of
+ * a 300 pixel dial, falling back to the angle for unknown cells as views do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PolarHitTestGridBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int SIZE = 300;
+    private static final int CENTER = SIZE / 2;
+
+    private final float[] mX = new float[SAMPLES];
+    private final float[] mY = new float[SAMPLES];
+    private final SnapTable mMinuteSnap = SnapTable.forMinuteStep(1);
+    private final PolarHitTestGrid mGrid = new PolarHitTestGrid();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            final double radians = 2 * Math.PI * i / SAMPLES;
+            final double radius = 100 + i % 50;
+            mX[i] = (float) (CENTER + radius * Math.sin(radians));
+            mY[i] = (float) (CENTER - radius * Math.cos(radians));
+        }
+        mGrid.build(SIZE, SIZE, CENTER, CENTER, 8, mMinuteSnap);
+    }
+
+    @Benchmark
+    public void snappedMinuteFromGrid(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            int snapDegrees = mGrid.getSnappedMinuteDegrees(mX[i], mY[i]);
+            if (snapDegrees == -1) {
+                snapDegrees = mMinuteSnap.snap(
+                        ClockFaceGeometry.getDegreesFromDelta(mX[i] - CENTER, mY[i] - CENTER));
+            }
+            bh.consume(snapDegrees);
+        }
+    }
+
+    @Benchmark
+    public void snappedMinuteFromAngle(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            bh.consume(mMinuteSnap.snap(
+                    ClockFaceGeometry.getDegreesFromDelta(mX[i] - CENTER, mY[i] - CENTER)));
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.timepicker.clockface;
+
+/**
+ * Dial math shared by the clock face views: snapping of touched angles to
+ * hours, numeral positions, angle interpolation and hour conversions.
+ * <p>
+ * Angles are in degrees, measured clockwise from 12 o'clock.
+ */
+public final class ClockFaceGeometry {
+    public static final int AM = 0;
+    public static final int PM = 1;
+
+    public static final int HOURS_IN_CIRCLE = 12;
+    public static final int MINUTES_IN_CIRCLE = 60;
+    public static final int DEGREES_FOR_ONE_HOUR = 360 / HOURS_IN_CIRCLE;
+    public static final int DEGREES_FOR_ONE_MINUTE = 360 / MINUTES_IN_CIRCLE;
+
+    /** Number of numerals drawn around a ring. */
+    public static final int NUM_POSITIONS = 12;
+
+    private static final float[] COS_30 = new float[NUM_POSITIONS];
+    private static final float[] SIN_30 = new float[NUM_POSITIONS];
+
+    /** Sine and cosine of every whole degree in [0,359]. */
+    private static final float[] SIN_DEG = new float[360];
+    private static final float[] COS_DEG = new float[360];
+
+    static {
+        final double increment = 2.0 * Math.PI / NUM_POSITIONS;
+        double angle = Math.PI / 2.0;
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            COS_30[i] = (float) Math.cos(angle);
+            SIN_30[i] = (float) Math.sin(angle);
+            angle += increment;
+        }
+
+        for (int i = 0; i < 360; i++) {
+            final double radians = Math.toRadians(i);
+            SIN_DEG[i] = (float) Math.sin(radians);
+            COS_DEG[i] = (float) Math.cos(radians);
+        }
+    }
+
+    private ClockFaceGeometry() {
+    }
+
+    /**
+     * Returns mapping of any input degrees (0 to 360) to one of 12 visible output degrees (all
+     * multiples of 30), where the input will be "snapped" to the closest visible degrees.
+     * @param degrees The input degrees
+     * @param forceHigherOrLower The output may be forced to either the higher or lower step, or may
+     * be allowed to snap to whichever is closer. Use 1 to force strictly higher, -1 to force
+     * strictly lower, and 0 to snap to the closer one.
+     * @return output degrees, will be a multiple of 30
+     */
+    public static int snapOnly30s(int degrees, int forceHigherOrLower) {
+        final int stepSize = DEGREES_FOR_ONE_HOUR;
+        int floor = (degrees / stepSize) * stepSize;
+        final int ceiling = floor + stepSize;
+        if (forceHigherOrLower == 1) {
+            degrees = ceiling;
+        } else if (forceHigherOrLower == -1) {
+            if (degrees == floor) {
+                floor -= stepSize;
+            }
+            degrees = floor;
+        } else {
+            if ((degrees - floor) < (ceiling - degrees)) {
+                degrees = floor;
+            } else {
+                degrees = ceiling;
+            }
+        }
+        return degrees;
+    }
+
+    /**
+     * Returns the angle in the range [0,359] of a point relative to the
+     * center of the dial.
+     *
+     * @param dX horizontal offset from the center
+     * @param dY vertical offset from the center, positive downwards
+     */
+    public static int getDegreesFromDelta(double dX, double dY) {
+        // Convert to degrees, in the range [-90,270].
+        final int degrees = (int) Math.round(Math.toDegrees(Math.atan2(dY, dX) + Math.PI / 2));
+        if (degrees < 0) {
+            return degrees + 360;
+        } else {
+            return degrees;
+        }
+    }
+
+    /**
+     * Using the trigonometric Unit Circle, calculate the positions that the 12 numerals will need
+     * to be drawn at based on the specified circle radius, starting at 12 o'clock. The caller is
+     * responsible for adjusting {@code yCenter} to the text baseline.
+     */
+    public static void calculatePositions(float radius, float xCenter, float yCenter,
+            float[] x, float[] y) {
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            x[i] = xCenter - radius * COS_30[i];
+            y[i] = yCenter - radius * SIN_30[i];
+        }
+    }
+
+    /**
+     * Returns the sine of a whole number of degrees from a lookup table.
+     */
+    public static float sinDeg(int degrees) {
+        return SIN_DEG[wrapDegrees(degrees)];
+    }
+
+    /**
+     * Returns the cosine of a whole number of degrees from a lookup table.
+     */
+    public static float cosDeg(int degrees) {
+        return COS_DEG[wrapDegrees(degrees)];
+    }
+
+    /**
+     * Returns the sine of an angle in degrees, linearly interpolated between
+     * the neighbouring whole degrees. The error is below 4e-5, well under a
+     * pixel for any dial radius.
+     */
+    public static float sinDeg(float degrees) {
+        return interpolateDeg(SIN_DEG, degrees);
+    }
+
+    /**
+     * Returns the cosine of an angle in degrees, linearly interpolated between
+     * the neighbouring whole degrees.
+     *
+     * @see #sinDeg(float)
+     */
+    public static float cosDeg(float degrees) {
+        return interpolateDeg(COS_DEG, degrees);
+    }
+
+    private static float interpolateDeg(float[] table, float degrees) {
+        final int floor = (int) Math.floor(degrees);
+        final float amount = degrees - floor;
+        final int index = wrapDegrees(floor);
+        final float start = table[index];
+        if (amount == 0) {
+            return start;
+        }
+        return start + (table[index == 359 ? 0 : index + 1] - start) * amount;
+    }
+
+    private static int wrapDegrees(int degrees) {
+        final int wrapped = degrees % 360;
+        return wrapped < 0 ? wrapped + 360 : wrapped;
+    }
+
+    public static float lerp(float start, float stop, float amount) {
+        return start + (stop - start) * amount;
+    }
+
+    /**
+     * Returns an interpolated angle in degrees between a set of start and end
+     * angles.
+     * <p>
+     * Unlike {@link #lerp(float, float, float)}, the direction and distance of
+     * travel is determined by the shortest angle between the start and end
+     * angles. For example, if the starting angle is 0 and the ending angle is
+     * 350, then the interpolated angle will be in the range [0,-10] rather
+     * than [0,350].
+     *
+     * @param start the starting angle in degrees
+     * @param end the ending angle in degrees
+     * @param amount the position between start and end in the range [0,1]
+     *               where 0 is the starting angle and 1 is the ending angle
+     * @return the interpolated angle in degrees
+     */
+    public static float lerpDeg(float start, float end, float amount) {
+        // The remainder keeps the sign of the dividend, so wrap it into
+        // [0,360) before centering it on zero.
+        float offset = ((end - start) + 180) % 360;
+        if (offset < 0) {
+            offset += 360;
+        }
+        final float minAngle = offset - 180;
+        return minAngle * amount + start;
+    }
+
+    /**
+     * Returns the hour selected by an angle.
+     *
+     * @param degrees the angle, a multiple of {@link #DEGREES_FOR_ONE_HOUR}
+     * @param innerCircle whether the inner circle is selected in 24-hour mode
+     * @param is24HourMode whether the dial shows 24 hours
+     * @param amOrPm {@link #AM} or {@link #PM}, ignored in 24-hour mode
+     * @return the hour in 24-hour time
+     */
+    public static int getHourForDegrees(int degrees, boolean innerCircle, boolean is24HourMode,
+            int amOrPm) {
+        int hour = (degrees / DEGREES_FOR_ONE_HOUR) % 12;
+        if (is24HourMode) {
+            // Convert the 12-hour value into 24-hour time based on where the
+            // selector is positioned.
+            if (!innerCircle && hour == 0) {
+                // Outer circle is 1 through 12.
+                hour = 12;
+            } else if (innerCircle && hour != 0) {
+                // Inner circle is 13 through 23 and 0.
+                hour += 12;
+            }
+        } else if (amOrPm == PM) {
+            hour += 12;
+        }
+        return hour;
+    }
+
+    /**
+     * @param hour the hour in 24-hour time or 12-hour time
+     */
+    public static int getDegreesForHour(int hour, boolean is24HourMode) {
+        // Convert to be 0-11.
+        if (is24HourMode) {
+            if (hour >= 12) {
+                hour -= 12;
+            }
+        } else if (hour == 12) {
+            hour = 0;
+        }
+        return hour * DEGREES_FOR_ONE_HOUR;
+    }
+
+    /**
+     * @param hour the hour in 24-hour time or 12-hour time
+     */
+    public static boolean getInnerCircleForHour(int hour, boolean is24HourMode) {
+        return is24HourMode && (hour == 0 || hour > 12);
+    }
+
+    public static int getMinuteForDegrees(int degrees) {
+        return degrees / DEGREES_FOR_ONE_MINUTE;
+    }
+
+    public static int getDegreesForMinute(int minute) {
+        return minute * DEGREES_FOR_ONE_MINUTE;
+    }
+
+    public static int hour12To24(int hour12, int amOrPm) {
+        int hour24 = hour12;
+        if (hour12 == 12) {
+            if (amOrPm == AM) {
+                hour24 = 0;
+            }
+        } else if (amOrPm == PM) {
+            hour24 += 12;
+        }
+        return hour24;
+    }
+
+    public static int hour24To12(int hour24) {
+        if (hour24 == 0) {
+            return 12;
+        } else if (hour24 > 12) {
+            return hour24 - 12;
+        } else {
+            return hour24;
+        }
+    }
+
+    /**
+     * Returns the difference between two values along a circle.
+     *
+     * @param first value in the range [0,max]
+     * @param second value in the range [0,max]
+     * @param max the maximum value along the circle
+     * @return the difference in between the two values
+     */
+    public static int getCircularDiff(int first, int second, int max) {
+        final int diff = Math.abs(first - second);
+        final int midpoint = max / 2;
+        return (diff > midpoint) ? (max - diff) : diff;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.timepicker.clockface;
+
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Formats integers with the digits of a locale, like
+ * {@code String.format(locale, "%d", value)} and
+ * {@code String.format(locale, "%02d", value)}.
+ * <p>
+ * Formatters are cached per locale and share their tables with every locale
+ * using the same zero digit. Values in [0,99] come from pre-built string
+ * tables, so formatting hours and minutes never allocates.
+ */
+public final class DigitFormatter {
+    /** Size of the pre-built string tables. */
+    private static final int TABLE_SIZE = 100;
+
+    private static final Map<Locale, DigitFormatter> sByLocale = new HashMap<>();
+    private static final Map<Character, DigitFormatter> sByZeroDigit = new HashMap<>();
+
+    /** Default locale and its formatter as of the last call to {@link #getInstance()}. */
+    private static volatile DefaultEntry sDefault;
+
+    private final char mZeroDigit;
+
+    /** Values in [0,99] without and with a leading zero. */
+    private final String[] mUnpadded = new String[TABLE_SIZE];
+    private final String[] mPadded = new String[TABLE_SIZE];
+
+    /**
+     * Returns the formatter for the default locale.
+     */
+    public static DigitFormatter getInstance() {
+        final Locale locale = Locale.getDefault();
+        DefaultEntry entry = sDefault;
+        if (entry == null || entry.mLocale != locale) {
+            entry = new DefaultEntry(locale, getInstance(locale));
+            sDefault = entry;
+        }
+        return entry.mFormatter;
+    }
+
+    /**
+     * Returns the formatter for the given locale.
+     */
+    public static DigitFormatter getInstance(Locale locale) {
+        synchronized (sByLocale) {
+            DigitFormatter formatter = sByLocale.get(locale);
+            if (formatter == null) {
+                final char zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+                formatter = sByZeroDigit.get(zeroDigit);
+                if (formatter == null) {
+                    formatter = new DigitFormatter(zeroDigit);
+                    sByZeroDigit.put(zeroDigit, formatter);
+                }
+                sByLocale.put(locale, formatter);
+            }
+            return formatter;
+        }
+    }
+
+    private DigitFormatter(char zeroDigit) {
+        mZeroDigit = zeroDigit;
+
+        final char[] digits = new char[2];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            digits[0] = (char) (zeroDigit + i / 10);
+            digits[1] = (char) (zeroDigit + i % 10);
+            mPadded[i] = new String(digits);
+            mUnpadded[i] = i < 10 ? mPadded[i].substring(1) : mPadded[i];
+        }
+    }
+
+    /** @return the character used for the digit zero */
+    public char getZeroDigit() {
+        return mZeroDigit;
+    }
+
+    /**
+     * Formats a value without leading zeroes.
+     */
+    public String format(int value) {
+        if (value >= 0 && value < TABLE_SIZE) {
+            return mUnpadded[value];
+        }
+        return format(value, 1);
+    }
+
+    /**
+     * Formats a value with at least two digits.
+     */
+    public String formatTwoDigits(int value) {
+        if (value >= 0 && value < TABLE_SIZE) {
+            return mPadded[value];
+        }
+        return format(value, 2);
+    }
+
+    /**
+     * Formats a value padded with leading zeroes, like
+     * {@code String.format(locale, "%0" + minLength + "d", value)}.
+     *
+     * @param minLength the minimum length, including the sign
+     */
+    public String format(int value, int minLength) {
+        if (value >= 0 && value < TABLE_SIZE && minLength <= 2) {
+            return minLength == 2 ? mPadded[value] : mUnpadded[value];
+        }
+
+        // Work with the negative magnitude, which also holds Integer.MIN_VALUE.
+        final boolean negative = value < 0;
+        final int minDigits = negative ? minLength - 1 : minLength;
+        int remaining = negative ? value : -value;
+        final char[] chars = new char[Math.max(minDigits, 10) + 1];
+        int start = chars.length;
+        while (remaining != 0) {
+            chars[--start] = (char) (mZeroDigit - remaining % 10);
+            remaining /= 10;
+        }
+        while (chars.length - start < minDigits || start == chars.length) {
+            chars[--start] = mZeroDigit;
+        }
+        if (negative) {
+            chars[--start] = '-';
+        }
+        return new String(chars, start, chars.length - start);
+    }
+
+    private static final class DefaultEntry {
+        final Locale mLocale;
+        final DigitFormatter mFormatter;
+
+        DefaultEntry(Locale locale, DigitFormatter formatter) {
+            mLocale = locale;
+            mFormatter = formatter;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.timepicker.clockface;
+
+/**
+ * Grid of square cells covering a dial that caches the results of the
+ * angle computations for touch, hover and accessibility lookups.
+ * <p>
+ * Each cell stores the snapped hour, snapped minute and touched minute
+ * for points inside it. A value is only stored if it's the same at all
+ * four corners of the cell. Each value maps to a contiguous arc around
+ * the center, so the value then holds for the whole cell. Other values,
+ * and cells containing the center, are marked unknown and callers fall
+ * back to computing the angle.
+ */
+public final class PolarHitTestGrid {
+    private static final int SHIFT_HOUR = 0;
+    private static final int SHIFT_MINUTE = 4;
+    private static final int SHIFT_TOUCHED = 10;
+
+    private static final int MASK_HOUR = 0xF;
+    private static final int MASK_MINUTE = 0x3F;
+
+    private static final int UNKNOWN_HOUR = MASK_HOUR;
+    private static final int UNKNOWN_MINUTE = MASK_MINUTE;
+
+    private int[] mCells;
+    private int[] mCorners;
+    private int mColumns;
+    private int mRows;
+    private int mCellSize;
+
+    /**
+     * Rebuilds the grid for a dial of the given size and center.
+     *
+     * @param cellSize the width and height of a cell
+     * @param minuteSnap the table snapping touched angles to minutes
+     */
+    public void build(int width, int height, int xCenter, int yCenter, int cellSize,
+            SnapTable minuteSnap) {
+        final int columns = (width + cellSize - 1) / cellSize;
+        final int rows = (height + cellSize - 1) / cellSize;
+        if (mCells == null || mCells.length < columns * rows) {
+            mCells = new int[columns * rows];
+        }
+        if (mCorners == null || mCorners.length < (columns + 1) * (rows + 1)) {
+            mCorners = new int[(columns + 1) * (rows + 1)];
+        }
+        mColumns = columns;
+        mRows = rows;
+        mCellSize = cellSize;
+
+        // Packed values for every cell corner.
+        final int[] corners = mCorners;
+        for (int row = 0; row <= rows; row++) {
+            final double dY = row * cellSize - yCenter;
+            for (int column = 0; column <= columns; column++) {
+                final double dX = column * cellSize - xCenter;
+                final int degrees = ClockFaceGeometry.getDegreesFromDelta(dX, dY);
+                corners[row * (columns + 1) + column] =
+                        (ClockFaceGeometry.snapOnly30s(degrees, 0) % 360
+                                / ClockFaceGeometry.DEGREES_FOR_ONE_HOUR) << SHIFT_HOUR
+                        | (minuteSnap.snap(degrees)
+                                / ClockFaceGeometry.DEGREES_FOR_ONE_MINUTE) << SHIFT_MINUTE
+                        | ClockFaceGeometry.getMinuteForDegrees(degrees) << SHIFT_TOUCHED;
+            }
+        }
+
+        final int unknown = UNKNOWN_HOUR << SHIFT_HOUR
+                | UNKNOWN_MINUTE << SHIFT_MINUTE | UNKNOWN_MINUTE << SHIFT_TOUCHED;
+        for (int row = 0; row < rows; row++) {
+            final int top = row * cellSize;
+            final boolean spansCenterY = top <= yCenter && yCenter <= top + cellSize;
+            for (int column = 0; column < columns; column++) {
+                final int left = column * cellSize;
+                if (spansCenterY && left <= xCenter && xCenter <= left + cellSize) {
+                    mCells[row * columns + column] = unknown;
+                    continue;
+                }
+
+                final int topLeft = corners[row * (columns + 1) + column];
+                final int topRight = corners[row * (columns + 1) + column + 1];
+                final int bottomLeft = corners[(row + 1) * (columns + 1) + column];
+                final int bottomRight = corners[(row + 1) * (columns + 1) + column + 1];
+                mCells[row * columns + column] =
+                        agree(topLeft, topRight, bottomLeft, bottomRight,
+                                SHIFT_HOUR, MASK_HOUR)
+                        | agree(topLeft, topRight, bottomLeft, bottomRight,
+                                SHIFT_MINUTE, MASK_MINUTE)
+                        | agree(topLeft, topRight, bottomLeft, bottomRight,
+                                SHIFT_TOUCHED, MASK_MINUTE);
+            }
+        }
+    }
+
+    /**
+     * Returns the field at the given shift if all four corners agree, or
+     * the unknown value of the field otherwise.
+     */
+    private static int agree(int a, int b, int c, int d, int shift, int mask) {
+        final int value = (a >>> shift) & mask;
+        if (value == ((b >>> shift) & mask) && value == ((c >>> shift) & mask)
+                && value == ((d >>> shift) & mask)) {
+            return value << shift;
+        }
+        return mask << shift;
+    }
+
+    private int getField(float x, float y, int shift, int mask) {
+        if (mCells == null || x < 0 || y < 0) {
+            return -1;
+        }
+        final int column = (int) (x / mCellSize);
+        final int row = (int) (y / mCellSize);
+        if (column >= mColumns || row >= mRows) {
+            return -1;
+        }
+        final int value = (mCells[row * mColumns + column] >>> shift) & mask;
+        return value == mask ? -1 : value;
+    }
+
+    /** @return the snapped hour in degrees, or -1 if not known */
+    public int getSnappedHourDegrees(float x, float y) {
+        final int hour = getField(x, y, SHIFT_HOUR, MASK_HOUR);
+        return hour == -1 ? -1 : hour * ClockFaceGeometry.DEGREES_FOR_ONE_HOUR;
+    }
+
+    /** @return the snapped minute in degrees, or -1 if not known */
+    public int getSnappedMinuteDegrees(float x, float y) {
+        final int minute = getField(x, y, SHIFT_MINUTE, MASK_MINUTE);
+        return minute == -1 ? -1 : minute * ClockFaceGeometry.DEGREES_FOR_ONE_MINUTE;
+    }
+
+    /** @return the touched minute, or -1 if not known */
+    public int getTouchedMinute(float x, float y) {
+        return getField(x, y, SHIFT_TOUCHED, MASK_MINUTE);
+    }
+}
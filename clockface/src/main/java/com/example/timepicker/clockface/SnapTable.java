@@ -0,0 +1,182 @@
+package com.example.timepicker.clockface;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lookup table snapping touched angles and minute values to the selectable
+ * steps of a dial.
+ * <p>
+ * Tables are immutable and cached process-wide by step size and weighting,
+ * so views fetch them once when their step changes and snap every event
+ * with a single array read.
+ */
+public final class SnapTable {
+    /** Degrees between two visible numerals. */
+    private static final int DEGREES_FOR_VISIBLE = 360 / ClockFaceGeometry.NUM_POSITIONS;
+
+    private static final Map<Integer, SnapTable> sCache = new HashMap<>();
+
+    private final int mStepDegrees;
+    private final int mStepMinutes;
+
+    /** Snapped degrees in [0,359] for every input degree in [0,360]. */
+    private final int[] mDegrees = new int[361];
+
+    /** Nearest step value within the hour for every minute in [0,59]. */
+    private final int[] mMinutes = new int[ClockFaceGeometry.MINUTES_IN_CIRCLE];
+
+    /**
+     * Returns the table for snapping minutes to the given step. Single
+     * minutes prefer the visible multiples of five, as the minute dial
+     * always has.
+     *
+     * @param stepMinutes one of 1, 5, 10, 15, 20 or 30
+     * @throws IllegalArgumentException if the step is not supported
+     */
+    public static SnapTable forMinuteStep(int stepMinutes) {
+        if (stepMinutes > ClockFaceGeometry.MINUTES_IN_CIRCLE / 2) {
+            throw new IllegalArgumentException("Unsupported minute step: " + stepMinutes);
+        }
+        return get(stepMinutes * ClockFaceGeometry.DEGREES_FOR_ONE_MINUTE, stepMinutes == 1);
+    }
+
+    /**
+     * Returns the table for snapping to the given angular step.
+     *
+     * @param stepDegrees the angle between selectable values, which must
+     *                    either divide or be a multiple of the angle between
+     *                    visible numerals and divide the full circle
+     * @param preferVisible whether visible values should get larger touch
+     *                      targets than the values between them
+     * @throws IllegalArgumentException if the step is not supported
+     */
+    public static SnapTable get(int stepDegrees, boolean preferVisible) {
+        if (stepDegrees <= 0 || 360 % stepDegrees != 0
+                || (DEGREES_FOR_VISIBLE % stepDegrees != 0
+                        && stepDegrees % DEGREES_FOR_VISIBLE != 0)) {
+            throw new IllegalArgumentException("Unsupported snap step: " + stepDegrees);
+        }
+
+        // Preference only matters when there are values between numerals.
+        final boolean weighted = preferVisible && stepDegrees < DEGREES_FOR_VISIBLE;
+        final Integer key = stepDegrees << 1 | (weighted ? 1 : 0);
+        synchronized (sCache) {
+            SnapTable table = sCache.get(key);
+            if (table == null) {
+                table = new SnapTable(stepDegrees, weighted);
+                sCache.put(key, table);
+            }
+            return table;
+        }
+    }
+
+    private SnapTable(int stepDegrees, boolean weighted) {
+        mStepDegrees = stepDegrees;
+        mStepMinutes = Math.max(1, stepDegrees / ClockFaceGeometry.DEGREES_FOR_ONE_MINUTE);
+
+        if (weighted) {
+            prepareWeightedMap(stepDegrees);
+        } else {
+            // Snap to the closer step, rounding halfway angles up.
+            for (int degrees = 0; degrees <= 360; degrees++) {
+                mDegrees[degrees] = (degrees + stepDegrees / 2) / stepDegrees * stepDegrees % 360;
+            }
+        }
+
+        final int step = mStepMinutes;
+        final int lastStep = mMinutes.length - step;
+        for (int minute = 0; minute < mMinutes.length; minute++) {
+            mMinutes[minute] = Math.min((minute + step / 2) / step * step, lastStep);
+        }
+    }
+
+    /**
+     * Split up the 360 degrees of the circle among the selectable values, assigning a larger
+     * selectable area to each of the 12 visible values. For a step of 6 degrees (one minute),
+     * the ratio of space apportioned to a visible value : space apportioned to a non-visible
+     * value is 14 : 4. E.g. the output of 30 degrees should have a higher range of input
+     * associated with it than the output of 24 degrees, because 30 degrees corresponds to a
+     * visible number on the clock circle (5 on the minutes, 1 or 13 on the hours).
+     */
+    private void prepareWeightedMap(int stepDegrees) {
+        // We'll split up the visible output and the non-visible output such that each visible
+        // output will correspond to a range of 14 associated input degrees, and each non-visible
+        // output will correspond to a range of 4 associate input degrees, so visible numbers
+        // are more than 3 times easier to get than non-visible numbers:
+        // {354-359,0-7}:0, {8-11}:6, {12-15}:12, {16-19}:18, {20-23}:24, {24-37}:30, etc.
+        //
+        // If an output of 30 degrees should correspond to a range of 14 associated degrees, then
+        // we'll need any input between 24 - 37 to snap to 30. Working out from there, 20-23 should
+        // snap to 24, while 38-41 should snap to 36. This is somewhat counter-intuitive, that you
+        // can be touching 36 degrees but have the selection snapped to 30 degrees; however, this
+        // inconsistency isn't noticeable at such fine-grained degrees, and it affords us the
+        // ability to aggressively prefer the visible values by a factor of more than 3:1, which
+        // greatly contributes to the selectability of these values.
+        //
+        // Other steps keep the same proportions: non-visible outputs get two thirds of their
+        // step, and visible outputs get the rest of the space between two visible numbers.
+        final int hiddenCount = stepDegrees * 2 / 3;
+        final int visibleCount =
+                DEGREES_FOR_VISIBLE - (DEGREES_FOR_VISIBLE / stepDegrees - 1) * hiddenCount;
+
+        // The first output is 0, and each following output will increment by the step.
+        int snappedOutputDegrees = 0;
+        // Count of how many inputs we've designated to the specified output.
+        int count = 1;
+        // How many input we expect for a specified output. We'll special case the outputs of 0
+        // and 360, which share the range around 0.
+        int expectedCount = visibleCount / 2 + 1;
+        // Iterate through the input.
+        for (int degrees = 0; degrees < 361; degrees++) {
+            // Save the input-output mapping.
+            mDegrees[degrees] = snappedOutputDegrees % 360;
+            // If this is the last input for the specified output, calculate the next output and
+            // the next expected count.
+            if (count == expectedCount) {
+                snappedOutputDegrees += stepDegrees;
+                if (snappedOutputDegrees == 360) {
+                    // The rest of the range of 0, including 360 itself.
+                    expectedCount = visibleCount - visibleCount / 2;
+                } else if (snappedOutputDegrees % DEGREES_FOR_VISIBLE == 0) {
+                    expectedCount = visibleCount;
+                } else {
+                    expectedCount = hiddenCount;
+                }
+                count = 1;
+            } else {
+                count++;
+            }
+        }
+    }
+
+    /** @return the angle between two selectable values */
+    public int getStepDegrees() {
+        return mStepDegrees;
+    }
+
+    /** @return the number of minutes between two selectable values */
+    public int getStepMinutes() {
+        return mStepMinutes;
+    }
+
+    /**
+     * Returns the selectable angle for a touched angle.
+     *
+     * @param degrees the touched angle in the range [0,360]
+     * @return the snapped angle in the range [0,359]
+     */
+    public int snap(int degrees) {
+        return mDegrees[degrees];
+    }
+
+    /**
+     * Returns the selectable minute of the same hour closest to a minute,
+     * rounding halfway minutes up.
+     *
+     * @param minute the minute in the range [0,59]
+     */
+    public int snapMinute(int minute) {
+        return mMinutes[minute];
+    }
+}
@@ -0,0 +1,425 @@
+package com.example.timepicker.clockface;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Selectable minutes of a day, e.g. the free slots of a booking calendar.
+ * <p>
+ * Availability is kept as a 1440-bit mask with one bit per minute of the
+ * day. Each hour also keeps a summary of its 60 minutes in a single long,
+ * so checking a minute, an hour or an hour at a given minute step is a
+ * constant-time bit test. Ranges update only the summaries of the hours
+ * they cover.
+ * <p>
+ * A new instance has every minute available. Large schedules are best
+ * ingested with a {@link Builder}, which may run on a background thread.
+ * Instances are not thread-safe; once handed to a picker, only modify them
+ * on the main thread.
+ */
+public final class TimeAvailability {
+    public static final int HOURS_PER_DAY = 24;
+    public static final int MINUTES_PER_HOUR = 60;
+    public static final int MINUTES_PER_DAY = HOURS_PER_DAY * MINUTES_PER_HOUR;
+
+    /** Minutes that are multiples of a step, indexed by step. */
+    private static final long[] STEP_MASKS = new long[MINUTES_PER_HOUR / 2 + 1];
+
+    private static final long HOUR_MASK = (1L << MINUTES_PER_HOUR) - 1;
+
+    static {
+        for (int step = 1; step < STEP_MASKS.length; step++) {
+            if (MINUTES_PER_HOUR % step == 0) {
+                for (int minute = 0; minute < MINUTES_PER_HOUR; minute += step) {
+                    STEP_MASKS[step] |= 1L << minute;
+                }
+            }
+        }
+    }
+
+    private final BitSet mAvailable = new BitSet(MINUTES_PER_DAY);
+
+    /** Available minutes of each hour, minute 0 in the lowest bit. */
+    private final long[] mHourSummaries = new long[HOURS_PER_DAY];
+
+    /**
+     * Closest selectable minute of the day at or after each minute, or -1
+     * if there is none, for the step in {@link #mTableStep}.
+     */
+    private short[] mNextSelectable;
+
+    /** Closest selectable minute of the day at or before each minute, or -1. */
+    private short[] mPreviousSelectable;
+
+    /** Minute step the tables were built for, or 0 if they are stale. */
+    private int mTableStep;
+
+    public TimeAvailability() {
+        mAvailable.set(0, MINUTES_PER_DAY);
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            mHourSummaries[hour] = HOUR_MASK;
+        }
+    }
+
+    private TimeAvailability(BitSet available) {
+        mAvailable.or(available);
+
+        // Extract each hour's 60 bits from the 64-bit words of the mask.
+        // Trailing unavailable words are trimmed by toLongArray().
+        final long[] words = available.toLongArray();
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            final int start = hour * MINUTES_PER_HOUR;
+            final int word = start >>> 6;
+            final int shift = start & 63;
+            long bits = word < words.length ? words[word] >>> shift : 0;
+            if (shift > 64 - MINUTES_PER_HOUR && word + 1 < words.length) {
+                bits |= words[word + 1] << (64 - shift);
+            }
+            mHourSummaries[hour] = bits & HOUR_MASK;
+        }
+    }
+
+    /**
+     * Marks a range of minutes as available or unavailable.
+     *
+     * @param fromMinuteOfDay the first minute of the range, inclusive
+     * @param toMinuteOfDay the end of the range, exclusive, up to
+     *                      {@link #MINUTES_PER_DAY}
+     * @param available whether the minutes can be selected
+     * @return this instance, for chaining
+     * @throws IndexOutOfBoundsException if the range is not within the day
+     */
+    public TimeAvailability setAvailable(int fromMinuteOfDay, int toMinuteOfDay,
+            boolean available) {
+        update(fromMinuteOfDay, toMinuteOfDay, available);
+        return this;
+    }
+
+    /**
+     * Marks a range of minutes as available or unavailable and reports which
+     * hours changed, so that views can refresh only the affected values.
+     *
+     * @param fromMinuteOfDay the first minute of the range, inclusive
+     * @param toMinuteOfDay the end of the range, exclusive, up to
+     *                      {@link #MINUTES_PER_DAY}
+     * @param available whether the minutes can be selected
+     * @return a mask with bit {@code h} set for every hour {@code h} whose
+     *         available minutes changed
+     * @throws IndexOutOfBoundsException if the range is not within the day
+     */
+    public int update(int fromMinuteOfDay, int toMinuteOfDay, boolean available) {
+        checkRange(fromMinuteOfDay, toMinuteOfDay);
+        if (fromMinuteOfDay == toMinuteOfDay) {
+            return 0;
+        }
+
+        mAvailable.set(fromMinuteOfDay, toMinuteOfDay, available);
+
+        int changedHours = 0;
+        final int firstHour = fromMinuteOfDay / MINUTES_PER_HOUR;
+        final int lastHour = (toMinuteOfDay - 1) / MINUTES_PER_HOUR;
+        for (int hour = firstHour; hour <= lastHour; hour++) {
+            final int hourStart = hour * MINUTES_PER_HOUR;
+            final int from = Math.max(fromMinuteOfDay - hourStart, 0);
+            final int to = Math.min(toMinuteOfDay - hourStart, MINUTES_PER_HOUR);
+            final long bits = ((1L << (to - from)) - 1) << from;
+            final long summary = available
+                    ? mHourSummaries[hour] | bits : mHourSummaries[hour] & ~bits;
+            if (summary != mHourSummaries[hour]) {
+                mHourSummaries[hour] = summary;
+                changedHours |= 1 << hour;
+            }
+        }
+        if (changedHours != 0) {
+            mTableStep = 0;
+        }
+        return changedHours;
+    }
+
+    private static void checkRange(int fromMinuteOfDay, int toMinuteOfDay) {
+        if (fromMinuteOfDay < 0 || toMinuteOfDay > MINUTES_PER_DAY
+                || fromMinuteOfDay > toMinuteOfDay) {
+            throw new IndexOutOfBoundsException("Invalid range [" + fromMinuteOfDay + ", "
+                    + toMinuteOfDay + ")");
+        }
+    }
+
+    /**
+     * @param minuteOfDay the minute in the range [0,1439]
+     * @return whether the minute can be selected
+     */
+    public boolean isAvailable(int minuteOfDay) {
+        return mAvailable.get(minuteOfDay);
+    }
+
+    /**
+     * @param hourOfDay the hour in the range [0,23]
+     * @param minute the minute in the range [0,59]
+     * @return whether the minute can be selected
+     */
+    public boolean isAvailable(int hourOfDay, int minute) {
+        return (mHourSummaries[hourOfDay] & (1L << minute)) != 0;
+    }
+
+    /**
+     * @param hourOfDay the hour in the range [0,23]
+     * @return whether any minute of the hour can be selected
+     */
+    public boolean isHourAvailable(int hourOfDay) {
+        return mHourSummaries[hourOfDay] != 0;
+    }
+
+    /**
+     * @param hourOfDay the hour in the range [0,23]
+     * @param minuteStep the number of minutes between selectable minutes,
+     *                   which must divide an hour
+     * @return whether any multiple of the step within the hour can be
+     *         selected
+     * @throws IllegalArgumentException if the step doesn't divide an hour
+     */
+    public boolean isHourAvailable(int hourOfDay, int minuteStep) {
+        checkMinuteStep(minuteStep);
+        return (mHourSummaries[hourOfDay] & STEP_MASKS[minuteStep]) != 0;
+    }
+
+    /**
+     * Returns the available minutes of an hour as a bit mask, with minute 0
+     * in the lowest bit.
+     *
+     * @param hourOfDay the hour in the range [0,23]
+     */
+    public long getHourSummary(int hourOfDay) {
+        return mHourSummaries[hourOfDay];
+    }
+
+    /**
+     * Returns the selectable minute of the day closest to a minute, going
+     * around midnight if that is closer. Ties go to the later minute.
+     * <p>
+     * Lookups use successor and predecessor tables that are built on the
+     * first query after the availability or the step changed, so they take
+     * constant time.
+     *
+     * @param minuteOfDay the minute in the range [0,1439]
+     * @param minuteStep the number of minutes between selectable minutes,
+     *                   which must divide an hour
+     * @return the closest available multiple of the step, or -1 if there is
+     *         none
+     * @throws IllegalArgumentException if the step doesn't divide an hour
+     */
+    public int getNearestSelectable(int minuteOfDay, int minuteStep) {
+        ensureTables(minuteStep);
+
+        int next = mNextSelectable[minuteOfDay];
+        if (next < 0) {
+            next = mNextSelectable[0];
+            if (next >= 0) {
+                next += MINUTES_PER_DAY;
+            }
+        }
+        int previous = mPreviousSelectable[minuteOfDay];
+        if (previous < 0) {
+            previous = mPreviousSelectable[MINUTES_PER_DAY - 1];
+            if (previous >= 0) {
+                previous -= MINUTES_PER_DAY;
+            }
+        }
+        if (next < 0) {
+            // Nothing is selectable.
+            return -1;
+        }
+
+        final int nearest = next - minuteOfDay <= minuteOfDay - previous ? next : previous;
+        return (nearest + MINUTES_PER_DAY) % MINUTES_PER_DAY;
+    }
+
+    /**
+     * Returns the selectable minute of an hour closest to a minute. Ties go
+     * to the later minute.
+     *
+     * @param hourOfDay the hour in the range [0,23]
+     * @param minute the minute in the range [0,59]
+     * @param minuteStep the number of minutes between selectable minutes,
+     *                   which must divide an hour
+     * @return the closest available multiple of the step within the hour,
+     *         or -1 if there is none
+     * @throws IllegalArgumentException if the step doesn't divide an hour
+     * @see #getNearestSelectable(int, int)
+     */
+    public int getNearestSelectableMinute(int hourOfDay, int minute, int minuteStep) {
+        ensureTables(minuteStep);
+
+        final int hourStart = hourOfDay * MINUTES_PER_HOUR;
+        final int minuteOfDay = hourStart + minute;
+        int next = mNextSelectable[minuteOfDay];
+        if (next >= hourStart + MINUTES_PER_HOUR) {
+            next = -1;
+        }
+        int previous = mPreviousSelectable[minuteOfDay];
+        if (previous < hourStart) {
+            previous = -1;
+        }
+
+        final int nearest;
+        if (next < 0) {
+            nearest = previous;
+        } else if (previous < 0) {
+            nearest = next;
+        } else {
+            nearest = next - minuteOfDay <= minuteOfDay - previous ? next : previous;
+        }
+        return nearest < 0 ? -1 : nearest - hourStart;
+    }
+
+    private static void checkMinuteStep(int minuteStep) {
+        if (minuteStep <= 0 || minuteStep >= STEP_MASKS.length || STEP_MASKS[minuteStep] == 0) {
+            throw new IllegalArgumentException("Unsupported minute step: " + minuteStep);
+        }
+    }
+
+    private void ensureTables(int minuteStep) {
+        // Checked first, as a step of 0 would match stale tables.
+        checkMinuteStep(minuteStep);
+        if (mTableStep == minuteStep) {
+            return;
+        }
+        if (mNextSelectable == null) {
+            mNextSelectable = new short[MINUTES_PER_DAY];
+            mPreviousSelectable = new short[MINUTES_PER_DAY];
+        }
+
+        final long stepMask = STEP_MASKS[minuteStep];
+        short next = -1;
+        for (int minuteOfDay = MINUTES_PER_DAY - 1; minuteOfDay >= 0; minuteOfDay--) {
+            final long selectable = mHourSummaries[minuteOfDay / MINUTES_PER_HOUR] & stepMask;
+            if ((selectable & 1L << (minuteOfDay % MINUTES_PER_HOUR)) != 0) {
+                next = (short) minuteOfDay;
+            }
+            mNextSelectable[minuteOfDay] = next;
+        }
+        short previous = -1;
+        for (int minuteOfDay = 0; minuteOfDay < MINUTES_PER_DAY; minuteOfDay++) {
+            if (mNextSelectable[minuteOfDay] == minuteOfDay) {
+                previous = (short) minuteOfDay;
+            }
+            mPreviousSelectable[minuteOfDay] = previous;
+        }
+        mTableStep = minuteStep;
+    }
+
+    /**
+     * Builds an availability from a schedule of minute ranges, e.g. the
+     * occupied intervals of a booking calendar.
+     * <p>
+     * Ranges may be added in any order and may overlap. They are sorted (if
+     * needed) and merged when {@link #build()} is called, so each merged run
+     * is written to the mask once. The builder does no UI work and may be
+     * used on a background thread; hand the result to the picker on the
+     * main thread.
+     */
+    public static final class Builder {
+        private final boolean mRangesAvailable;
+
+        /** Ranges packed as {@code from << 32 | to}, sortable as longs. */
+        private long[] mRanges = new long[16];
+        private int mRangeCount;
+        private boolean mSorted = true;
+
+        /**
+         * @param rangesAvailable {@code true} if the day starts unavailable
+         *                        and the ranges are the free minutes, or
+         *                        {@code false} if the day starts available
+         *                        and the ranges are the occupied minutes
+         */
+        public Builder(boolean rangesAvailable) {
+            mRangesAvailable = rangesAvailable;
+        }
+
+        /**
+         * Adds a range of minutes.
+         *
+         * @param fromMinuteOfDay the first minute of the range, inclusive
+         * @param toMinuteOfDay the end of the range, exclusive, up to
+         *                      {@link #MINUTES_PER_DAY}
+         * @return this builder, for chaining
+         * @throws IndexOutOfBoundsException if the range is not within the day
+         */
+        public Builder addRange(int fromMinuteOfDay, int toMinuteOfDay) {
+            checkRange(fromMinuteOfDay, toMinuteOfDay);
+            if (fromMinuteOfDay == toMinuteOfDay) {
+                return this;
+            }
+
+            if (mRangeCount == mRanges.length) {
+                mRanges = Arrays.copyOf(mRanges, mRangeCount * 2);
+            }
+            final long range = (long) fromMinuteOfDay << 32 | toMinuteOfDay;
+            if (mRangeCount > 0 && range < mRanges[mRangeCount - 1]) {
+                mSorted = false;
+            }
+            mRanges[mRangeCount++] = range;
+            return this;
+        }
+
+        /**
+         * Adds ranges stored as consecutive pairs of start (inclusive) and
+         * end (exclusive) minutes of the day.
+         *
+         * @param bounds the array holding the pairs
+         * @param offset the index of the first start minute
+         * @param count the number of ranges
+         * @return this builder, for chaining
+         * @throws IndexOutOfBoundsException if a range is not within the day
+         */
+        public Builder addRanges(int[] bounds, int offset, int count) {
+            final int needed = mRangeCount + count;
+            if (needed > mRanges.length) {
+                mRanges = Arrays.copyOf(mRanges, Math.max(needed, mRanges.length * 2));
+            }
+            for (int i = 0; i < count; i++) {
+                addRange(bounds[offset + 2 * i], bounds[offset + 2 * i + 1]);
+            }
+            return this;
+        }
+
+        /**
+         * Merges the ranges added so far into a new availability. The
+         * builder can be reused afterwards.
+         */
+        public TimeAvailability build() {
+            final long[] ranges = mRanges;
+            final int count = mRangeCount;
+            if (!mSorted) {
+                Arrays.sort(ranges, 0, count);
+                mSorted = true;
+            }
+
+            final BitSet available = new BitSet(MINUTES_PER_DAY);
+            if (!mRangesAvailable) {
+                available.set(0, MINUTES_PER_DAY);
+            }
+
+            // Ranges are sorted by start; coalesce overlapping and adjacent ones.
+            int runFrom = -1;
+            int runTo = -1;
+            for (int i = 0; i < count; i++) {
+                final int from = (int) (ranges[i] >>> 32);
+                final int to = (int) ranges[i];
+                if (from <= runTo) {
+                    runTo = Math.max(runTo, to);
+                } else {
+                    if (runFrom >= 0) {
+                        available.set(runFrom, runTo, mRangesAvailable);
+                    }
+                    runFrom = from;
+                    runTo = to;
+                }
+            }
+            if (runFrom >= 0) {
+                available.set(runFrom, runTo, mRangesAvailable);
+            }
+
+            return new TimeAvailability(available);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.timepicker.clockface;
+
+import static com.example.timepicker.clockface.ClockFaceGeometry.AM;
+import static com.example.timepicker.clockface.ClockFaceGeometry.PM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClockFaceGeometryTest {
+    private static final float EPSILON = 1e-3f;
+
+    @Test
+    public void hours_roundTripIn24HourMode() {
+        for (int hour = 0; hour < 24; hour++) {
+            final int degrees = ClockFaceGeometry.getDegreesForHour(hour, true);
+            final boolean inner = ClockFaceGeometry.getInnerCircleForHour(hour, true);
+            assertEquals(hour % 12 * 30, degrees);
+            assertEquals(hour == 0 || hour > 12, inner);
+
+            // The AM/PM state has no effect in 24-hour mode.
+            assertEquals(hour, ClockFaceGeometry.getHourForDegrees(degrees, inner, true, AM));
+            assertEquals(hour, ClockFaceGeometry.getHourForDegrees(degrees, inner, true, PM));
+        }
+    }
+
+    @Test
+    public void hours_roundTripIn12HourMode() {
+        for (int hour = 0; hour < 24; hour++) {
+            final int amOrPm = hour < 12 ? AM : PM;
+            final int hour12 = ClockFaceGeometry.hour24To12(hour);
+            assertTrue(hour12 >= 1 && hour12 <= 12);
+            assertEquals(hour, ClockFaceGeometry.hour12To24(hour12, amOrPm));
+
+            final int degrees = ClockFaceGeometry.getDegreesForHour(hour12, false);
+            assertEquals(hour % 12 * 30, degrees);
+            assertFalse(ClockFaceGeometry.getInnerCircleForHour(hour12, false));
+            assertEquals(hour, ClockFaceGeometry.getHourForDegrees(degrees, false, false, amOrPm));
+        }
+    }
+
+    @Test
+    public void minutes_roundTrip() {
+        for (int minute = 0; minute < 60; minute++) {
+            final int degrees = ClockFaceGeometry.getDegreesForMinute(minute);
+            assertEquals(minute * 6, degrees);
+            assertEquals(minute, ClockFaceGeometry.getMinuteForDegrees(degrees));
+        }
+    }
+
+    @Test
+    public void getDegreesFromDelta_isWithinADegreeOfTheTouchedAngle() {
+        for (int tenths = 0; tenths < 3600; tenths++) {
+            final double radians = Math.toRadians(tenths / 10.0);
+            final double dX = 100 * Math.sin(radians);
+            final double dY = -100 * Math.cos(radians);
+            final int degrees = ClockFaceGeometry.getDegreesFromDelta(dX, dY);
+            assertTrue(degrees >= 0 && degrees < 360);
+            assertTrue("at " + tenths / 10.0 + " got " + degrees,
+                    circularDistance(degrees, tenths / 10f) <= 1);
+        }
+    }
+
+    @Test
+    public void sinCosDeg_matchMath() {
+        for (int tenths = -7200; tenths <= 7200; tenths++) {
+            final float degrees = tenths / 10f;
+            final double radians = Math.toRadians(degrees);
+            assertEquals(Math.sin(radians), ClockFaceGeometry.sinDeg(degrees), 4e-5);
+            assertEquals(Math.cos(radians), ClockFaceGeometry.cosDeg(degrees), 4e-5);
+            if (tenths % 10 == 0) {
+                assertEquals(Math.sin(radians), ClockFaceGeometry.sinDeg(tenths / 10), 1e-6);
+                assertEquals(Math.cos(radians), ClockFaceGeometry.cosDeg(tenths / 10), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void lerpDeg_takesTheShortestWay() {
+        for (int start = 0; start < 360; start++) {
+            for (int end = 0; end < 360; end++) {
+                assertEquals(start, ClockFaceGeometry.lerpDeg(start, end, 0), 0);
+                assertEquals(0, circularDistance(
+                        ClockFaceGeometry.lerpDeg(start, end, 1), end), EPSILON);
+
+                // Halfway is never farther than a quarter turn from either end.
+                final float half = ClockFaceGeometry.lerpDeg(start, end, 0.5f);
+                final float distance = circularDistance(start, end);
+                assertEquals(distance / 2, Math.abs(half - start), EPSILON);
+                assertEquals(distance / 2, circularDistance(half, end), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void lerpDeg_movesEvenly() {
+        for (int start = 0; start < 360; start += 7) {
+            for (int end = 0; end < 360; end += 5) {
+                float previous = start;
+                for (int i = 1; i <= 100; i++) {
+                    final float current = ClockFaceGeometry.lerpDeg(start, end, i / 100f);
+                    final float step = Math.abs(current - previous);
+                    assertTrue(step <= circularDistance(start, end) / 100 + EPSILON);
+                    previous = current;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getCircularDiff_isSymmetricAndBounded() {
+        for (int first = 0; first < 60; first++) {
+            for (int second = 0; second < 60; second++) {
+                final int diff = ClockFaceGeometry.getCircularDiff(first, second, 60);
+                assertEquals(diff, ClockFaceGeometry.getCircularDiff(second, first, 60));
+                assertTrue(diff >= 0 && diff <= 30);
+                assertTrue((first + diff) % 60 == second || (second + diff) % 60 == first);
+            }
+        }
+    }
+
+    /** Returns the unsigned angle between two angles in degrees, in [0,180]. */
+    private static float circularDistance(float first, float second) {
+        float diff = Math.abs(first - second) % 360;
+        return diff > 180 ? 360 - diff : diff;
+    }
+}
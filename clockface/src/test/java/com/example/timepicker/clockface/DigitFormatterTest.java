@@ -0,0 +1,114 @@
+package com.example.timepicker.clockface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class DigitFormatterTest {
+    private static final Locale[] LOCALES = {
+            Locale.US,
+            Locale.forLanguageTag("ar"),
+            Locale.forLanguageTag("ar-EG"),
+            Locale.forLanguageTag("fa"),
+            Locale.forLanguageTag("fa-IR"),
+            Locale.forLanguageTag("hi"),
+            Locale.forLanguageTag("hi-IN-u-nu-deva"),
+            Locale.forLanguageTag("th-TH-u-nu-thai"),
+    };
+
+    /** Locales expected to format with non-ASCII digits. */
+    private static final Locale[] NATIVE_DIGIT_LOCALES = {
+            Locale.forLanguageTag("ar"),
+            Locale.forLanguageTag("fa"),
+            Locale.forLanguageTag("hi-IN-u-nu-deva"),
+    };
+
+    private static final int[] EXTREME_VALUES = {
+            Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1_000_000_000, 999_999_999,
+            1_000_000_000, Integer.MAX_VALUE - 1, Integer.MAX_VALUE,
+    };
+
+    @Test
+    public void format_matchesStringFormat() {
+        for (Locale locale : LOCALES) {
+            final DigitFormatter formatter = DigitFormatter.getInstance(locale);
+            for (int value = -1000; value <= 1000; value++) {
+                checkFormat(locale, formatter, value);
+            }
+            for (int value : EXTREME_VALUES) {
+                checkFormat(locale, formatter, value);
+            }
+        }
+    }
+
+    @Test
+    public void formatWithMinLength_matchesStringFormat() {
+        for (Locale locale : LOCALES) {
+            final DigitFormatter formatter = DigitFormatter.getInstance(locale);
+            for (int minLength = 1; minLength <= 12; minLength++) {
+                final String pattern = "%0" + minLength + "d";
+                for (int value = -1000; value <= 1000; value++) {
+                    assertEquals(locale + " " + pattern + " " + value,
+                            String.format(locale, pattern, value),
+                            formatter.format(value, minLength));
+                }
+                for (int value : EXTREME_VALUES) {
+                    assertEquals(locale + " " + pattern + " " + value,
+                            String.format(locale, pattern, value),
+                            formatter.format(value, minLength));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getInstance_usesLocaleDigits() {
+        for (Locale locale : NATIVE_DIGIT_LOCALES) {
+            final char zeroDigit = DigitFormatter.getInstance(locale).getZeroDigit();
+            assertEquals(DecimalFormatSymbols.getInstance(locale).getZeroDigit(), zeroDigit);
+            assertNotEquals(locale.toString(), '0', zeroDigit);
+        }
+    }
+
+    @Test
+    public void getInstance_sharesFormattersBetweenLocales() {
+        assertSame(DigitFormatter.getInstance(Locale.forLanguageTag("fa")),
+                DigitFormatter.getInstance(Locale.forLanguageTag("fa-IR")));
+        assertSame(DigitFormatter.getInstance(Locale.US),
+                DigitFormatter.getInstance(Locale.GERMANY));
+    }
+
+    @Test
+    public void getInstance_followsDefaultLocale() {
+        final Locale defaultLocale = Locale.getDefault();
+        try {
+            for (Locale locale : LOCALES) {
+                Locale.setDefault(locale);
+                assertSame(DigitFormatter.getInstance(locale), DigitFormatter.getInstance());
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void tables_areShared() {
+        final DigitFormatter formatter = DigitFormatter.getInstance(Locale.US);
+        for (int value = 0; value < 100; value++) {
+            assertSame(formatter.format(value), formatter.format(value));
+            assertSame(formatter.formatTwoDigits(value), formatter.formatTwoDigits(value));
+        }
+    }
+
+    private static void checkFormat(Locale locale, DigitFormatter formatter, int value) {
+        assertEquals(locale + " " + value,
+                String.format(locale, "%d", value), formatter.format(value));
+        assertEquals(locale + " " + value,
+                String.format(locale, "%02d", value), formatter.formatTwoDigits(value));
+    }
+}
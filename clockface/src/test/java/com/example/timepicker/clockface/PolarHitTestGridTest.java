@@ -0,0 +1,80 @@
+package com.example.timepicker.clockface;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Compares every grid lookup with the angle computed from the touch point,
+ * which is what views fall back to for unknown cells.
+ */
+public class PolarHitTestGridTest {
+    /** Sub-pixel positions tested per pixel along each axis. */
+    private static final int SAMPLES_PER_PIXEL = 4;
+
+    @Test
+    public void lookups_matchTrigonometry() {
+        // Square and odd-sized dials, off-center dials and cell sizes that
+        // don't divide the view size.
+        final int[][] layouts = {
+                // width, height, xCenter, yCenter, cellSize
+                {300, 300, 150, 150, 8},
+                {301, 257, 150, 128, 5},
+                {120, 200, 60, 90, 7},
+                {64, 64, 32, 32, 1},
+                {48, 48, 20, 30, 16},
+        };
+        for (int[] layout : layouts) {
+            for (int step : new int[] {1, 5, 15}) {
+                checkLayout(layout[0], layout[1], layout[2], layout[3], layout[4],
+                        SnapTable.forMinuteStep(step));
+            }
+        }
+    }
+
+    @Test
+    public void lookups_outsideTheGridAreUnknown() {
+        final PolarHitTestGrid grid = new PolarHitTestGrid();
+        assertEquals(-1, grid.getSnappedHourDegrees(10, 10));
+
+        grid.build(100, 100, 50, 50, 8, SnapTable.forMinuteStep(1));
+        for (float[] point : new float[][] {{-1, 50}, {50, -1}, {104, 50}, {50, 104}}) {
+            assertEquals(-1, grid.getSnappedHourDegrees(point[0], point[1]));
+            assertEquals(-1, grid.getSnappedMinuteDegrees(point[0], point[1]));
+            assertEquals(-1, grid.getTouchedMinute(point[0], point[1]));
+        }
+    }
+
+    private static void checkLayout(int width, int height, int xCenter, int yCenter,
+            int cellSize, SnapTable minuteSnap) {
+        final PolarHitTestGrid grid = new PolarHitTestGrid();
+        grid.build(width, height, xCenter, yCenter, cellSize, minuteSnap);
+
+        final String layout = width + "x" + height + " centered at " + xCenter + "," + yCenter
+                + " with cells of " + cellSize + ", minute step " + minuteSnap.getStepMinutes();
+        for (int j = 0; j < height * SAMPLES_PER_PIXEL; j++) {
+            final float y = (float) j / SAMPLES_PER_PIXEL;
+            for (int i = 0; i < width * SAMPLES_PER_PIXEL; i++) {
+                final float x = (float) i / SAMPLES_PER_PIXEL;
+                final int degrees = ClockFaceGeometry.getDegreesFromDelta(x - xCenter,
+                        y - yCenter);
+
+                final int hour = grid.getSnappedHourDegrees(x, y);
+                if (hour != -1) {
+                    assertEquals(layout + " hour at " + x + "," + y,
+                            ClockFaceGeometry.snapOnly30s(degrees, 0) % 360, hour);
+                }
+                final int minute = grid.getSnappedMinuteDegrees(x, y);
+                if (minute != -1) {
+                    assertEquals(layout + " minute at " + x + "," + y,
+                            minuteSnap.snap(degrees), minute);
+                }
+                final int touched = grid.getTouchedMinute(x, y);
+                if (touched != -1) {
+                    assertEquals(layout + " touched minute at " + x + "," + y,
+                            ClockFaceGeometry.getMinuteForDegrees(degrees), touched);
+                }
+            }
+        }
+    }
+}
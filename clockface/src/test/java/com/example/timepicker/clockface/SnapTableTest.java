@@ -0,0 +1,148 @@
+package com.example.timepicker.clockface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class SnapTableTest {
+    private static final int[] MINUTE_STEPS = {1, 5, 10, 15, 20, 30};
+
+    /** Steps that leave room for values between two visible numerals. */
+    private static final int[] WEIGHTED_STEP_DEGREES = {2, 3, 5, 6, 10, 15};
+
+    @Test
+    public void forMinuteStep_rejectsUnsupportedSteps() {
+        for (int step = -1; step <= 60; step++) {
+            if (contains(MINUTE_STEPS, step)) {
+                assertEquals(step, SnapTable.forMinuteStep(step).getStepMinutes());
+                continue;
+            }
+            try {
+                SnapTable.forMinuteStep(step);
+                fail("Expected step " + step + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void get_returnsCachedTables() {
+        for (int step : MINUTE_STEPS) {
+            assertSame(SnapTable.forMinuteStep(step), SnapTable.forMinuteStep(step));
+        }
+    }
+
+    @Test
+    public void snap_unweightedPicksNearestStep() {
+        for (int stepDegrees = 1; stepDegrees <= 360; stepDegrees++) {
+            if (!isSupported(stepDegrees)) {
+                continue;
+            }
+            final SnapTable table = SnapTable.get(stepDegrees, false);
+            for (int degrees = 0; degrees <= 360; degrees++) {
+                final int snapped = table.snap(degrees);
+                assertStep(stepDegrees, snapped);
+
+                // Halfway angles round up.
+                final int expected = (degrees * 2 + stepDegrees) / (stepDegrees * 2)
+                        * stepDegrees % 360;
+                assertEquals("step " + stepDegrees + " at " + degrees, expected, snapped);
+                assertTrue(ClockFaceGeometry.getCircularDiff(degrees % 360, snapped, 360)
+                        <= stepDegrees / 2);
+            }
+        }
+    }
+
+    @Test
+    public void snap_weightedCoversEveryStepInOrder() {
+        for (int stepDegrees : WEIGHTED_STEP_DEGREES) {
+            final SnapTable table = SnapTable.get(stepDegrees, true);
+            final int[] counts = new int[360];
+            int previous = table.snap(0);
+            assertEquals(0, previous);
+            for (int degrees = 0; degrees < 360; degrees++) {
+                final int snapped = table.snap(degrees);
+                assertStep(stepDegrees, snapped);
+                counts[snapped]++;
+
+                // Moving around the dial never skips or revisits a step.
+                final int advance = (snapped - previous + 360) % 360;
+                assertTrue("step " + stepDegrees + " at " + degrees,
+                        advance == 0 || advance == stepDegrees);
+                previous = snapped;
+            }
+            assertEquals(table.snap(0), table.snap(360));
+
+            int visibleCount = -1;
+            int hiddenCount = -1;
+            for (int value = 0; value < 360; value += stepDegrees) {
+                if (value % ClockFaceGeometry.DEGREES_FOR_ONE_HOUR == 0) {
+                    // Visible numerals can always be selected by touching them.
+                    assertEquals(value, table.snap(value));
+                    visibleCount = checkSameCount(visibleCount, counts[value]);
+                } else {
+                    hiddenCount = checkSameCount(hiddenCount, counts[value]);
+                }
+            }
+            assertTrue("step " + stepDegrees, visibleCount > hiddenCount);
+            assertTrue("step " + stepDegrees, hiddenCount > 0);
+        }
+    }
+
+    @Test
+    public void snap_singleMinutesPreferVisibleNumerals() {
+        final SnapTable table = SnapTable.forMinuteStep(1);
+        assertEquals(0, table.snap(354));
+        assertEquals(0, table.snap(7));
+        assertEquals(6, table.snap(8));
+        assertEquals(6, table.snap(11));
+        assertEquals(24, table.snap(23));
+        assertEquals(30, table.snap(24));
+        assertEquals(30, table.snap(37));
+        assertEquals(36, table.snap(38));
+    }
+
+    @Test
+    public void snapMinute_picksNearestStepWithinTheHour() {
+        for (int step : MINUTE_STEPS) {
+            final SnapTable table = SnapTable.forMinuteStep(step);
+            for (int minute = 0; minute < 60; minute++) {
+                final int snapped = table.snapMinute(minute);
+                assertEquals(0, snapped % step);
+                assertTrue(snapped >= 0 && snapped <= 60 - step);
+
+                // Halfway minutes round up unless that leaves the hour.
+                final int expected = Math.min((minute * 2 + step) / (step * 2) * step, 60 - step);
+                assertEquals("step " + step + " at " + minute, expected, snapped);
+            }
+        }
+    }
+
+    private static int checkSameCount(int expected, int actual) {
+        if (expected >= 0) {
+            assertEquals(expected, actual);
+        }
+        return actual;
+    }
+
+    private static void assertStep(int stepDegrees, int snapped) {
+        assertTrue(snapped >= 0 && snapped < 360);
+        assertEquals(0, snapped % stepDegrees);
+    }
+
+    private static boolean isSupported(int stepDegrees) {
+        return 360 % stepDegrees == 0 && (30 % stepDegrees == 0 || stepDegrees % 30 == 0);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.timepicker.clockface;
+
+import static com.example.timepicker.clockface.TimeAvailability.HOURS_PER_DAY;
+import static com.example.timepicker.clockface.TimeAvailability.MINUTES_PER_DAY;
+import static com.example.timepicker.clockface.TimeAvailability.MINUTES_PER_HOUR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link TimeAvailability} with a plain array of available minutes
+ * and with brute-force searches for the nearest selectable minute.
+ */
+public class TimeAvailabilityTest {
+    private static final int[] MINUTE_STEPS = {1, 2, 3, 4, 5, 6, 10, 12, 15, 20, 30};
+
+    @Test
+    public void setAvailable_matchesReference() {
+        final Random random = new Random(0);
+        final TimeAvailability availability = new TimeAvailability();
+        final boolean[] expected = newDay(true);
+        checkMatches(expected, availability);
+
+        for (int i = 0; i < 2000; i++) {
+            final int from = random.nextInt(MINUTES_PER_DAY + 1);
+            final int to = from + random.nextInt(i % 2 == 0 ? 180 : MINUTES_PER_DAY + 1 - from);
+            final int end = Math.min(to, MINUTES_PER_DAY);
+            final boolean available = random.nextBoolean();
+
+            final long[] summariesBefore = summaries(expected);
+            for (int minute = from; minute < end; minute++) {
+                expected[minute] = available;
+            }
+            final long[] summariesAfter = summaries(expected);
+            int changedHours = 0;
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                if (summariesBefore[hour] != summariesAfter[hour]) {
+                    changedHours |= 1 << hour;
+                }
+            }
+
+            assertEquals("[" + from + ", " + end + ") set to " + available,
+                    changedHours, availability.update(from, end, available));
+            checkMatches(expected, availability);
+        }
+    }
+
+    @Test
+    public void update_reportsOnlyChangedHours() {
+        final TimeAvailability availability = new TimeAvailability();
+        assertEquals(0, availability.update(0, MINUTES_PER_DAY, true));
+        assertEquals(0, availability.update(100, 100, false));
+
+        // 00:59 to 02:01 touches hours 0, 1 and 2.
+        assertEquals(0b111, availability.update(59, 121, false));
+        assertEquals(0, availability.update(60, 120, false));
+        assertEquals(0b10, availability.update(90, 91, true));
+        assertEquals(1 << 23, availability.update(MINUTES_PER_DAY - 1, MINUTES_PER_DAY, false));
+        // Every hour still had some available minutes.
+        assertEquals((1 << HOURS_PER_DAY) - 1, availability.update(0, MINUTES_PER_DAY, false));
+    }
+
+    @Test
+    public void build_summarizesEveryMinute() {
+        // Single minutes land on every position relative to the 64-bit
+        // words the mask is read from, including hours spanning two words.
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            final boolean[] expected = newDay(false);
+            expected[minute] = true;
+            checkMatches(expected, new TimeAvailability.Builder(true)
+                    .addRange(minute, minute + 1).build());
+
+            checkMatches(invert(expected), new TimeAvailability.Builder(false)
+                    .addRange(minute, minute + 1).build());
+        }
+    }
+
+    @Test
+    public void build_matchesSequentialSetAvailable() {
+        final Random random = new Random(1);
+        for (int trial = 0; trial < 500; trial++) {
+            final boolean rangesAvailable = random.nextBoolean();
+            final TimeAvailability.Builder builder =
+                    new TimeAvailability.Builder(rangesAvailable);
+            final TimeAvailability sequential = new TimeAvailability()
+                    .setAvailable(0, MINUTES_PER_DAY, !rangesAvailable);
+
+            // Unsorted, overlapping, adjacent, nested and empty ranges, added
+            // one at a time and in bulk.
+            final int count = random.nextInt(40);
+            final int[] bounds = new int[2 * count];
+            for (int i = 0; i < count; i++) {
+                final int from = random.nextInt(MINUTES_PER_DAY);
+                final int to = Math.min(from + random.nextInt(150), MINUTES_PER_DAY);
+                bounds[2 * i] = from;
+                bounds[2 * i + 1] = to;
+                sequential.setAvailable(from, to, rangesAvailable);
+            }
+            final int split = count == 0 ? 0 : random.nextInt(count);
+            for (int i = 0; i < split; i++) {
+                builder.addRange(bounds[2 * i], bounds[2 * i + 1]);
+            }
+            builder.addRanges(bounds, 2 * split, count - split);
+
+            final TimeAvailability built = builder.build();
+            checkMatches(toArray(sequential), built);
+
+            // The builder can be reused, with the ranges kept.
+            builder.addRange(0, 1);
+            sequential.setAvailable(0, 1, rangesAvailable);
+            checkMatches(toArray(sequential), builder.build());
+        }
+    }
+
+    @Test
+    public void build_withoutRanges() {
+        checkMatches(newDay(false), new TimeAvailability.Builder(true).build());
+        checkMatches(newDay(true), new TimeAvailability.Builder(false).build());
+    }
+
+    @Test
+    public void getNearestSelectable_matchesBruteForce() {
+        for (boolean[] day : testDays()) {
+            final TimeAvailability availability = fromArray(day);
+            for (int step : MINUTE_STEPS) {
+                for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+                    assertEquals("step " + step + " at " + minute,
+                            nearestSelectable(day, minute, step),
+                            availability.getNearestSelectable(minute, step));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getNearestSelectable_wrapsAroundMidnight() {
+        final TimeAvailability availability = new TimeAvailability()
+                .setAvailable(0, MINUTES_PER_DAY, false)
+                .setAvailable(MINUTES_PER_DAY - 10, MINUTES_PER_DAY - 9, true)
+                .setAvailable(600, 601, true);
+        assertEquals(MINUTES_PER_DAY - 10, availability.getNearestSelectable(0, 1));
+        assertEquals(MINUTES_PER_DAY - 10, availability.getNearestSelectable(200, 1));
+        assertEquals(600, availability.getNearestSelectable(300, 1));
+
+        // Ties go to the later minute, across midnight too: 00:10 is as far
+        // from 00:00 as 23:50.
+        availability.setAvailable(10, 11, true);
+        assertEquals(10, availability.getNearestSelectable(0, 1));
+        assertEquals(10, availability.getNearestSelectable(5, 1));
+        assertEquals(MINUTES_PER_DAY - 10,
+                availability.getNearestSelectable(MINUTES_PER_DAY - 1, 1));
+    }
+
+    @Test
+    public void getNearestSelectableMinute_staysWithinTheHour() {
+        for (boolean[] day : testDays()) {
+            final TimeAvailability availability = fromArray(day);
+            for (int step : MINUTE_STEPS) {
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    for (int minute = 0; minute < MINUTES_PER_HOUR; minute++) {
+                        assertEquals("step " + step + " at " + hour + ":" + minute,
+                                nearestSelectableMinute(day, hour, minute, step),
+                                availability.getNearestSelectableMinute(hour, minute, step));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lookups_followUpdates() {
+        final Random random = new Random(2);
+        final TimeAvailability availability = new TimeAvailability();
+        final boolean[] day = newDay(true);
+        for (int i = 0; i < 200; i++) {
+            final int from = random.nextInt(MINUTES_PER_DAY);
+            final int to = Math.min(from + random.nextInt(300), MINUTES_PER_DAY);
+            final boolean available = random.nextInt(3) == 0;
+            availability.setAvailable(from, to, available);
+            for (int minute = from; minute < to; minute++) {
+                day[minute] = available;
+            }
+
+            final int step = MINUTE_STEPS[random.nextInt(MINUTE_STEPS.length)];
+            for (int minute = 0; minute < MINUTES_PER_DAY; minute += 7) {
+                assertEquals(nearestSelectable(day, minute, step),
+                        availability.getNearestSelectable(minute, step));
+            }
+        }
+    }
+
+    @Test
+    public void isHourAvailable_matchesBruteForce() {
+        for (boolean[] day : testDays()) {
+            final TimeAvailability availability = fromArray(day);
+            for (int step : MINUTE_STEPS) {
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    boolean expected = false;
+                    for (int minute = 0; minute < MINUTES_PER_HOUR; minute += step) {
+                        expected |= day[hour * MINUTES_PER_HOUR + minute];
+                    }
+                    assertEquals("step " + step + " at " + hour,
+                            expected, availability.isHourAvailable(hour, step));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stepLookups_rejectUnsupportedSteps() {
+        final TimeAvailability availability = new TimeAvailability();
+        for (int step = -1; step <= 61; step++) {
+            if (contains(MINUTE_STEPS, step)) {
+                continue;
+            }
+            try {
+                availability.isHourAvailable(0, step);
+                fail("Expected step " + step + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                availability.getNearestSelectable(0, step);
+                fail("Expected step " + step + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                availability.getNearestSelectableMinute(0, 0, step);
+                fail("Expected step " + step + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void ranges_outsideTheDayAreRejected() {
+        final int[][] ranges = {{-1, 10}, {0, MINUTES_PER_DAY + 1}, {20, 10}};
+        for (int[] range : ranges) {
+            try {
+                new TimeAvailability().update(range[0], range[1], false);
+                fail("Expected [" + range[0] + ", " + range[1] + ") to be rejected");
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            try {
+                new TimeAvailability.Builder(false).addRange(range[0], range[1]);
+                fail("Expected [" + range[0] + ", " + range[1] + ") to be rejected");
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+    }
+
+    /** Returns full, empty, sparse and random days, and days with one free minute. */
+    private static boolean[][] testDays() {
+        final Random random = new Random(3);
+        final boolean[][] days = new boolean[12][];
+        days[0] = newDay(true);
+        days[1] = newDay(false);
+        days[2] = newDay(false);
+        days[2][0] = true;
+        days[3] = newDay(false);
+        days[3][MINUTES_PER_DAY - 1] = true;
+        days[4] = newDay(false);
+        days[4][MINUTES_PER_DAY - 30] = true;
+        for (int i = 5; i < days.length; i++) {
+            // From very sparse to mostly available.
+            final int percent = (i - 5) * 15 + 1;
+            days[i] = new boolean[MINUTES_PER_DAY];
+            for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+                days[i][minute] = random.nextInt(100) < percent;
+            }
+        }
+        return days;
+    }
+
+    /** Searches outwards from a minute, trying the later minute first. */
+    private static int nearestSelectable(boolean[] day, int minuteOfDay, int step) {
+        for (int distance = 0; distance <= MINUTES_PER_DAY / 2; distance++) {
+            final int later = (minuteOfDay + distance) % MINUTES_PER_DAY;
+            if (isSelectable(day, later, step)) {
+                return later;
+            }
+            final int earlier = (minuteOfDay - distance + MINUTES_PER_DAY) % MINUTES_PER_DAY;
+            if (isSelectable(day, earlier, step)) {
+                return earlier;
+            }
+        }
+        return -1;
+    }
+
+    private static int nearestSelectableMinute(boolean[] day, int hour, int minute, int step) {
+        final int hourStart = hour * MINUTES_PER_HOUR;
+        for (int distance = 0; distance < MINUTES_PER_HOUR; distance++) {
+            final int later = minute + distance;
+            if (later < MINUTES_PER_HOUR && isSelectable(day, hourStart + later, step)) {
+                return later;
+            }
+            final int earlier = minute - distance;
+            if (earlier >= 0 && isSelectable(day, hourStart + earlier, step)) {
+                return earlier;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSelectable(boolean[] day, int minuteOfDay, int step) {
+        return day[minuteOfDay] && minuteOfDay % MINUTES_PER_HOUR % step == 0;
+    }
+
+    private static void checkMatches(boolean[] expected, TimeAvailability availability) {
+        final long[] summaries = summaries(expected);
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            assertEquals("hour " + hour, summaries[hour], availability.getHourSummary(hour));
+            assertEquals("hour " + hour,
+                    summaries[hour] != 0, availability.isHourAvailable(hour));
+            for (int minute = 0; minute < MINUTES_PER_HOUR; minute++) {
+                final int minuteOfDay = hour * MINUTES_PER_HOUR + minute;
+                assertEquals("minute " + minuteOfDay,
+                        expected[minuteOfDay], availability.isAvailable(minuteOfDay));
+                assertEquals("minute " + minuteOfDay,
+                        expected[minuteOfDay], availability.isAvailable(hour, minute));
+            }
+        }
+    }
+
+    private static long[] summaries(boolean[] day) {
+        final long[] summaries = new long[HOURS_PER_DAY];
+        for (int minuteOfDay = 0; minuteOfDay < MINUTES_PER_DAY; minuteOfDay++) {
+            if (day[minuteOfDay]) {
+                summaries[minuteOfDay / MINUTES_PER_HOUR] |=
+                        1L << (minuteOfDay % MINUTES_PER_HOUR);
+            }
+        }
+        return summaries;
+    }
+
+    private static boolean[] newDay(boolean available) {
+        final boolean[] day = new boolean[MINUTES_PER_DAY];
+        if (available) {
+            Arrays.fill(day, true);
+        }
+        return day;
+    }
+
+    private static boolean[] invert(boolean[] day) {
+        final boolean[] inverted = new boolean[MINUTES_PER_DAY];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            inverted[minute] = !day[minute];
+        }
+        return inverted;
+    }
+
+    private static boolean[] toArray(TimeAvailability availability) {
+        final boolean[] day = new boolean[MINUTES_PER_DAY];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            day[minute] = availability.isAvailable(minute);
+        }
+        return day;
+    }
+
+    private static TimeAvailability fromArray(boolean[] day) {
+        final TimeAvailability availability = new TimeAvailability();
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            availability.setAvailable(minute, minute + 1, day[minute]);
+        }
+        return availability;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}